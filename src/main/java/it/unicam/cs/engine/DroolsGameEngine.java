@@ -0,0 +1,238 @@
+package it.unicam.cs.engine;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.kie.api.runtime.KieSession;
+
+import it.unicam.cs.enumeration.FactEquality;
+import it.unicam.cs.enumeration.SquareState;
+import it.unicam.cs.enumeration.SquareType;
+import it.unicam.cs.model.ChunkedBoard;
+import it.unicam.cs.model.Grid;
+import it.unicam.cs.model.Location;
+import it.unicam.cs.model.Neighbor;
+import it.unicam.cs.model.Square;
+import it.unicam.cs.utils.DroolsUtils;
+import lombok.Getter;
+
+/**
+ * Class to represent the engine applying the moves through the rules of
+ * mineRules.drl, which are the reference semantics of the game. The Squares and
+ * their Neighbor facts are inserted in the working memory when the game starts,
+ * or tile by tile, when reached, for chunked grids.
+ *
+ */
+public class DroolsGameEngine implements GameEngine {
+	/** Rule engine of the game **/
+	@Getter
+	private final DroolsUtils droolsUtils;
+	/** Grid of the game **/
+	private Grid grid;
+	/** Tiles whose Squares are in the working memory (chunked grids only) **/
+	private boolean[] activeTiles;
+	/** Active tiles having at least one inactive tile around them (chunked grids only) **/
+	private BitSet boundaryTiles;
+
+	public DroolsGameEngine() {
+		this(new DroolsUtils());
+	}
+
+	public DroolsGameEngine(FactEquality equality) {
+		this(new DroolsUtils(equality));
+	}
+
+	public DroolsGameEngine(DroolsUtils droolsUtils) {
+		this.droolsUtils = droolsUtils;
+	}
+
+	@Override
+	public void start(Grid grid) {
+		if (this.grid != null) {
+			// the grid was populated again: the new game starts on an empty session
+			droolsUtils.dispose();
+		}
+		this.grid = grid;
+		droolsUtils.startRecording(grid);
+		if (grid.isChunked()) {
+			// the Squares are inserted in the working memory tile by tile, when reached
+			ChunkedBoard chunkedBoard = (ChunkedBoard) grid.getBoard();
+			this.activeTiles = new boolean[chunkedBoard.getTileRows() * chunkedBoard.getTileColumns()];
+			this.boundaryTiles = new BitSet();
+			return;
+		}
+		KieSession kSession = droolsUtils.getKSession();
+		grid.getGridAsStream().forEach(s -> kSession.insert(s));
+		// link every Square to its neighbors using the precomputed adjacency
+		int[] neighbours = new int[8];
+		for (int index = 0; index < grid.getBoard().getSize(); index++) {
+			int count = grid.getNeighbours(index, neighbours);
+			for (int k = 0; k < count; k++) {
+				kSession.insert(new Neighbor(grid.getSquareAt(index), grid.getSquareAt(neighbours[k])));
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * For chunked grids, the tiles around the locations are inserted first, and
+	 * the tiles reached by an uncovered empty region are inserted while the region
+	 * grows. If the flood fill of the grid is enabled, UNCOVER moves are applied
+	 * on the board and only notified to the working memory.
+	 * <p>
+	 * With the IDENTITY FactEquality, the canonical Locations of the grid are
+	 * inserted, so that equal Locations are still the same fact.
+	 */
+	@Override
+	public Set<Square> play(String agendaGroup, Collection<Location> locations) {
+		if (droolsUtils.getEquality() == FactEquality.IDENTITY) {
+			locations = locations.stream().map(l -> grid.getLocation(grid.getIndex(l))).collect(Collectors.toList());
+		}
+		droolsUtils.recordMove(agendaGroup, locations);
+		if (grid.isFloodFill() && agendaGroup.equals("UNCOVER")) {
+			Set<Square> changedSquares = grid.uncover(locations);
+			if (grid.isChunked()) {
+				// only the tiles of the changed Squares need to be in the working memory
+				locations.forEach(l -> activateTilesAround(grid.getIndex(l)));
+				ChunkedBoard chunkedBoard = (ChunkedBoard) grid.getBoard();
+				changedSquares.forEach(s -> activateTile(chunkedBoard.getTileIndex(s.getIndex())));
+			}
+			droolsUtils.updateAll(agendaGroup, changedSquares);
+			return changedSquares;
+		}
+		if (!grid.isChunked()) {
+			return droolsUtils.insertAllAndFire(agendaGroup, locations);
+		}
+		locations.forEach(l -> activateTilesAround(grid.getIndex(l)));
+		Set<Square> changedSquares = droolsUtils.insertAllAndFire(agendaGroup, locations);
+		continueEmptyRegions(changedSquares);
+		return changedSquares;
+	}
+
+	@Override
+	public void dispose() {
+		droolsUtils.dispose();
+	}
+
+	/**
+	 * Method to continue the uncovering of the empty regions that reached an
+	 * inactive tile, inserting the tiles while the regions grow.
+	 *
+	 * @param changedSquares The set where to add the Squares changed by the rules.
+	 */
+	private void continueEmptyRegions(Set<Square> changedSquares) {
+		List<Location> emptyLocations = findEmptyLocationsOnBoundary();
+		while (!emptyLocations.isEmpty()) {
+			emptyLocations.forEach(l -> activateTilesAround(grid.getIndex(l)));
+			changedSquares.addAll(droolsUtils.insertAllAndFire("UNCOVER", emptyLocations));
+			emptyLocations = findEmptyLocationsOnBoundary();
+		}
+	}
+
+	/**
+	 * Method to insert into the working memory the tile containing a Square and
+	 * the tiles around it, if they are not already there.
+	 *
+	 * @param index The index of the Square.
+	 */
+	private void activateTilesAround(int index) {
+		ChunkedBoard chunkedBoard = (ChunkedBoard) grid.getBoard();
+		int tileRow = (index / chunkedBoard.getNColumns()) >>> ChunkedBoard.TILE_BITS;
+		int tileColumn = (index % chunkedBoard.getNColumns()) >>> ChunkedBoard.TILE_BITS;
+		for (int r = Math.max(0, tileRow - 1); r <= Math.min(chunkedBoard.getTileRows() - 1, tileRow + 1); r++) {
+			for (int c = Math.max(0, tileColumn - 1); c <= Math.min(chunkedBoard.getTileColumns() - 1, tileColumn + 1); c++) {
+				activateTile(r * chunkedBoard.getTileColumns() + c);
+			}
+		}
+	}
+
+	/**
+	 * Method to insert into the working memory the Squares of a tile and the
+	 * Neighbor facts linking them to each other and to the already active tiles.
+	 *
+	 * @param tile The index of the tile.
+	 */
+	private void activateTile(int tile) {
+		if (activeTiles[tile]) {
+			return;
+		}
+		ChunkedBoard chunkedBoard = (ChunkedBoard) grid.getBoard();
+		KieSession kSession = droolsUtils.getKSession();
+		int[] cells = chunkedBoard.getTileCells(tile).toArray();
+		for (int cell : cells) {
+			kSession.insert(grid.getSquareAt(cell));
+		}
+		int[] neighbours = new int[8];
+		for (int cell : cells) {
+			int count = grid.getNeighbours(cell, neighbours);
+			for (int k = 0; k < count; k++) {
+				int neighbourTile = chunkedBoard.getTileIndex(neighbours[k]);
+				if (neighbourTile == tile) {
+					kSession.insert(new Neighbor(grid.getSquareAt(cell), grid.getSquareAt(neighbours[k])));
+				} else if (activeTiles[neighbourTile]) {
+					kSession.insert(new Neighbor(grid.getSquareAt(cell), grid.getSquareAt(neighbours[k])));
+					kSession.insert(new Neighbor(grid.getSquareAt(neighbours[k]), grid.getSquareAt(cell)));
+				}
+			}
+		}
+		activeTiles[tile] = true;
+		// update the boundary status of the tile and of the active tiles around it
+		int tileRow = tile / chunkedBoard.getTileColumns();
+		int tileColumn = tile % chunkedBoard.getTileColumns();
+		for (int r = Math.max(0, tileRow - 1); r <= Math.min(chunkedBoard.getTileRows() - 1, tileRow + 1); r++) {
+			for (int c = Math.max(0, tileColumn - 1); c <= Math.min(chunkedBoard.getTileColumns() - 1, tileColumn + 1); c++) {
+				int otherTile = r * chunkedBoard.getTileColumns() + c;
+				boundaryTiles.set(otherTile, activeTiles[otherTile] && hasInactiveTilesAround(otherTile));
+			}
+		}
+	}
+
+	/**
+	 * Method to check if a tile has at least one inactive tile around it.
+	 *
+	 * @param tile The index of the tile.
+	 * @return True if an inactive tile is found, false otherwise.
+	 */
+	private boolean hasInactiveTilesAround(int tile) {
+		ChunkedBoard chunkedBoard = (ChunkedBoard) grid.getBoard();
+		int tileRow = tile / chunkedBoard.getTileColumns();
+		int tileColumn = tile % chunkedBoard.getTileColumns();
+		for (int r = Math.max(0, tileRow - 1); r <= Math.min(chunkedBoard.getTileRows() - 1, tileRow + 1); r++) {
+			for (int c = Math.max(0, tileColumn - 1); c <= Math.min(chunkedBoard.getTileColumns() - 1, tileColumn + 1); c++) {
+				if (!activeTiles[r * chunkedBoard.getTileColumns() + c]) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Method to find the uncovered empty Squares having a neighbor in an inactive
+	 * tile, that is the points where an empty region has to continue.
+	 *
+	 * @return The locations of the empty Squares found.
+	 */
+	private List<Location> findEmptyLocationsOnBoundary() {
+		ChunkedBoard chunkedBoard = (ChunkedBoard) grid.getBoard();
+		List<Location> emptyLocations = new ArrayList<Location>();
+		int[] neighbours = new int[8];
+		for (int tile = boundaryTiles.nextSetBit(0); tile >= 0; tile = boundaryTiles.nextSetBit(tile + 1)) {
+			chunkedBoard.getTileCells(tile).filter(cell -> grid.getState(cell) == SquareState.UNCOVERED && grid.getType(cell) == SquareType.EMPTY).forEach(cell -> {
+				int count = grid.getNeighbours(cell, neighbours);
+				for (int k = 0; k < count; k++) {
+					if (!activeTiles[chunkedBoard.getTileIndex(neighbours[k])]) {
+						emptyLocations.add(grid.getLocation(cell));
+						return;
+					}
+				}
+			});
+		}
+		return emptyLocations;
+	}
+}
@@ -0,0 +1,226 @@
+package it.unicam.cs.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import it.unicam.cs.enumeration.Difficulty;
+import it.unicam.cs.enumeration.GameState;
+import it.unicam.cs.enumeration.SquareState;
+import it.unicam.cs.enumeration.SquareType;
+import it.unicam.cs.model.Configuration;
+import it.unicam.cs.model.Grid;
+import it.unicam.cs.model.Location;
+import it.unicam.cs.model.Square;
+
+/**
+ * Class used to check that the JavaGameEngine behaves as the rules: random
+ * sequences of moves are replayed on two copies of the same grid, one played
+ * by the DroolsGameEngine and one by the JavaGameEngine, and the states of all
+ * the Squares are compared after every move. Some moves are chords on many
+ * numbers with wrong flags, which explode a bomb for each number.
+ *
+ */
+public class EngineConformance {
+	/** Configurations of the grids played, besides the difficulties **/
+	private static final Configuration[] CONFIGURATIONS = { new Configuration(5, 5, 3), new Configuration(30, 30, 40),
+			new Configuration(20, 40, 200) };
+	/** Maximum number of moves of a game **/
+	private static final int MAX_MOVES = 200;
+
+	/** Random source of the configurations, locations and moves **/
+	private final SplittableRandom random;
+	/** Number of moves replayed **/
+	private int moves = 0;
+	/** Number of differences found **/
+	private int mismatches = 0;
+	/** Number of chords made on many numbers with wrong flags **/
+	private int wrongChords = 0;
+
+	public EngineConformance(long seed) {
+		this.random = new SplittableRandom(seed);
+	}
+
+	/**
+	 * Method to run the conformance check.
+	 *
+	 * @param args The number of games (100 if not given) and the seed (1 if not
+	 *             given).
+	 */
+	public static void main(String[] args) {
+		// to make Drools work with Java >= 8
+		System.setProperty("java.version", "1.8");
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+		EngineConformance conformance = new EngineConformance(seed);
+		for (int game = 0; game < games; game++) {
+			conformance.playGame();
+		}
+		System.out.println(games + " games, " + conformance.moves + " moves (" + conformance.wrongChords
+				+ " wrong chords), " + conformance.mismatches + " mismatches");
+		System.exit(conformance.mismatches == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Method to replay a random game on both the engines.
+	 */
+	private void playGame() {
+		Difficulty[] difficulties = Difficulty.values();
+		int choice = random.nextInt(difficulties.length + CONFIGURATIONS.length);
+		Configuration config = choice < difficulties.length ? difficulties[choice].getConfiguration()
+				: CONFIGURATIONS[choice - difficulties.length];
+		long seed = random.nextLong();
+		Grid reference = new Grid(config, seed, new DroolsGameEngine());
+		Grid grid = new Grid(config, seed, new JavaGameEngine());
+		Location first = randomLocation(grid);
+		reference.populateSafeGrid(first);
+		grid.populateSafeGrid(first);
+		String description = config.getN_ROWS() + "x" + config.getN_COLUMNS() + "/" + config.getN_BOMBS() + " seed " + seed;
+		play(reference, grid, "UNCOVER", Collections.singletonList(first), description);
+		for (int move = 0; move < MAX_MOVES && grid.getGameState() == GameState.ONGOING; move++) {
+			int kind = random.nextInt(10);
+			if (kind == 9) {
+				List<Location> numbers = flagWrongly(reference, grid, description);
+				if (numbers == null) {
+					break;
+				}
+				if (!numbers.isEmpty()) {
+					wrongChords++;
+					if (!play(reference, grid, "CHORD", numbers, description)) {
+						break;
+					}
+					continue;
+				}
+			}
+			String agendaGroup = kind < 5 ? "UNCOVER" : kind < 8 ? "FLAG" : "CHORD";
+			List<Location> locations = new ArrayList<Location>();
+			int count = random.nextInt(4) == 0 ? 1 + random.nextInt(6) : 1;
+			for (int i = 0; i < count; i++) {
+				locations.add(agendaGroup.equals("CHORD") ? randomUncoveredLocation(grid) : randomLocation(grid));
+			}
+			if (!play(reference, grid, agendaGroup, locations, description)) {
+				break;
+			}
+		}
+		reference.dispose();
+		grid.dispose();
+	}
+
+	/**
+	 * Method to flag wrongly the neighbors of some uncovered numbers, so that a
+	 * chord on them explodes a bomb for each number. Every number gets as many
+	 * flags as its bombs, at least one of them on a safe Square, and the numbers
+	 * chosen do not share covered neighbors.
+	 *
+	 * @param reference   The grid played by the rules.
+	 * @param grid        The grid played by the engine under test.
+	 * @param description The description of the game, used to report differences.
+	 * @return The locations of the numbers to chord (empty if none can be chosen),
+	 *         or null if the grids differ after the flags.
+	 */
+	private List<Location> flagWrongly(Grid reference, Grid grid, String description) {
+		int[] numbers = grid.getTouchedIndexes().filter(i -> grid.getState(i) == SquareState.UNCOVERED
+				&& grid.getType(i) == SquareType.NUMBER && grid.getFlaggedNeighboursCount(i) == 0
+				&& grid.getCoveredNeighboursCount(i) > grid.getNeighbourBombsCount(i)).toArray();
+		List<Location> chosen = new ArrayList<Location>();
+		List<Location> flags = new ArrayList<Location>();
+		Set<Integer> used = new HashSet<Integer>();
+		int[] neighbours = new int[8];
+		for (int attempt = 0; attempt < 3 && numbers.length > 0; attempt++) {
+			int number = numbers[random.nextInt(numbers.length)];
+			int count = grid.getNeighbours(number, neighbours);
+			List<Integer> safe = new ArrayList<Integer>();
+			List<Integer> bombs = new ArrayList<Integer>();
+			boolean shared = false;
+			for (int k = 0; k < count; k++) {
+				if (grid.getState(neighbours[k]) == SquareState.COVERED) {
+					shared |= used.contains(neighbours[k]);
+					(grid.getType(neighbours[k]) == SquareType.BOMB ? bombs : safe).add(neighbours[k]);
+				}
+			}
+			if (shared) {
+				continue;
+			}
+			used.addAll(safe);
+			used.addAll(bombs);
+			// the safe Squares come first, so at least one bomb stays covered
+			safe.addAll(bombs);
+			safe.subList(0, grid.getNeighbourBombsCount(number)).forEach(i -> flags.add(grid.getLocation(i)));
+			chosen.add(grid.getLocation(number));
+		}
+		if (chosen.size() < 2) {
+			return Collections.emptyList();
+		}
+		return play(reference, grid, "FLAG", flags, description) ? chosen : null;
+	}
+
+	/**
+	 * Method to make the same move on both the grids and compare them.
+	 *
+	 * @param reference   The grid played by the rules.
+	 * @param grid        The grid played by the engine under test.
+	 * @param agendaGroup The agendGroup of the move.
+	 * @param locations   The locations of the move.
+	 * @param description The description of the game, used to report differences.
+	 * @return True if the grids are still equal, false otherwise.
+	 */
+	private boolean play(Grid reference, Grid grid, String agendaGroup, List<Location> locations, String description) {
+		moves++;
+		Set<Square> expected = new HashSet<Square>(reference.insertAllAndFire(agendaGroup, locations));
+		Set<Square> actual = new HashSet<Square>(grid.insertAllAndFire(agendaGroup, locations));
+		return compare(reference, grid, expected, actual, description + " move " + moves + " " + agendaGroup + " " + locations);
+	}
+
+	/**
+	 * Method to compare the states of the Squares of two grids.
+	 *
+	 * @param reference   The grid played by the rules.
+	 * @param grid        The grid played by the engine under test.
+	 * @param expected    The Squares changed on the reference grid.
+	 * @param actual      The Squares changed on the other grid.
+	 * @param description The description of the move, used to report differences.
+	 * @return True if the grids are equal, false otherwise.
+	 */
+	private boolean compare(Grid reference, Grid grid, Set<Square> expected, Set<Square> actual, String description) {
+		for (int index = 0; index < grid.getBoard().getSize(); index++) {
+			SquareState expectedState = reference.getState(index);
+			if (expectedState != grid.getState(index)) {
+				mismatches++;
+				System.out.println("Mismatch in " + description + ": " + grid.getLocation(index) + " is "
+						+ grid.getState(index) + " instead of " + expectedState);
+				return false;
+			}
+		}
+		if (!expected.equals(actual)) {
+			mismatches++;
+			System.out.println("Mismatch in " + description + ": changed " + actual.size() + " Squares instead of " + expected.size());
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Method to obtain a random location of a grid.
+	 *
+	 * @param grid The considered grid.
+	 * @return The random location.
+	 */
+	private Location randomLocation(Grid grid) {
+		return grid.getLocation(random.nextInt(grid.getConfig().getN_ROWS()), random.nextInt(grid.getConfig().getN_COLUMNS()));
+	}
+
+	/**
+	 * Method to obtain a random uncovered location of a grid, to make chords
+	 * meaningful.
+	 *
+	 * @param grid The considered grid.
+	 * @return The random location, any location if none is uncovered.
+	 */
+	private Location randomUncoveredLocation(Grid grid) {
+		int[] uncovered = grid.getTouchedIndexes().filter(i -> grid.getState(i) == SquareState.UNCOVERED).toArray();
+		return uncovered.length == 0 ? randomLocation(grid) : grid.getLocation(uncovered[random.nextInt(uncovered.length)]);
+	}
+}
@@ -0,0 +1,151 @@
+package it.unicam.cs.engine;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import it.unicam.cs.enumeration.Difficulty;
+import it.unicam.cs.enumeration.FactEquality;
+import it.unicam.cs.enumeration.GameState;
+import it.unicam.cs.enumeration.SquareState;
+import it.unicam.cs.enumeration.SquareType;
+import it.unicam.cs.model.Grid;
+import it.unicam.cs.model.Location;
+import it.unicam.cs.model.Square;
+import it.unicam.cs.utils.DroolsUtils;
+
+/**
+ * Class used to compare the cost of the rules with each FactEquality: for every
+ * difficulty, the same games are played with both the KieBases, measuring the
+ * insertion of the Squares and their Neighbor facts when a game starts and the
+ * firing of the rules for its moves. Every game is won by visiting the cells in
+ * random order, flagging the bombs and uncovering the other Squares.
+ * <p>
+ * The insertion is measured from the start of the engine, once the bombs are
+ * placed and the session is acquired, so only the inserts are timed.
+ *
+ */
+public class FactEqualityBenchmark {
+	/** Number of games played before measuring **/
+	private static final int WARM_UP_GAMES = 20;
+
+	/** Nanoseconds spent to insert the facts **/
+	private long insertTime;
+	/** Nanoseconds spent to fire the rules of the moves **/
+	private long fireTime;
+	/** Number of moves played **/
+	private long moves;
+	/** Number of facts in the working memory when the games started **/
+	private long facts;
+
+	/**
+	 * Method to run the benchmark.
+	 *
+	 * @param args The number of games for each difficulty (200 if not given).
+	 */
+	public static void main(String[] args) {
+		// to make Drools work with Java >= 8
+		System.setProperty("java.version", "1.8");
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		// every session is created when the game starts, whatever its FactEquality
+		DroolsUtils.setPoolSize(0);
+		for (Difficulty difficulty : Difficulty.values()) {
+			for (FactEquality equality : FactEquality.values()) {
+				new FactEqualityBenchmark().play(difficulty, equality, WARM_UP_GAMES);
+				FactEqualityBenchmark benchmark = new FactEqualityBenchmark();
+				benchmark.play(difficulty, equality, games);
+				System.out.println(String.format("%-12s %-8s insert %8.3f ms/game (%d facts) | fire %8.3f ms/game, %6.1f us/move",
+						difficulty, equality, benchmark.insertTime / 1e6 / games, benchmark.facts / games,
+						benchmark.fireTime / 1e6 / games, benchmark.fireTime / 1e3 / benchmark.moves));
+			}
+		}
+	}
+
+	/**
+	 * Method to play some games, accumulating their costs.
+	 *
+	 * @param difficulty The difficulty of the games.
+	 * @param equality   The FactEquality of the KieBase.
+	 * @param games      The number of games to play.
+	 */
+	private void play(Difficulty difficulty, FactEquality equality, int games) {
+		for (int game = 0; game < games; game++) {
+			// the same seeds are used with both the KieBases
+			SplittableRandom random = new SplittableRandom(game);
+			DroolsGameEngine engine = new DroolsGameEngine(equality);
+			engine.getDroolsUtils().getKSession();
+			Grid grid = new Grid(difficulty.getConfiguration(), random.nextLong(), new InsertTimer(engine));
+			grid.populateSafeGrid(grid.getLocation(random.nextInt(grid.getConfig().getN_ROWS()),
+					random.nextInt(grid.getConfig().getN_COLUMNS())));
+			facts += engine.getDroolsUtils().getKSession().getFactCount();
+			int[] cells = shuffledCells(grid.getBoard().getSize(), random);
+			for (int index : cells) {
+				if (grid.getGameState() != GameState.ONGOING) {
+					break;
+				}
+				if (grid.getState(index) != SquareState.COVERED) {
+					continue;
+				}
+				String agendaGroup = grid.getType(index) == SquareType.BOMB ? "FLAG" : "UNCOVER";
+				long startTime = System.nanoTime();
+				grid.insertAllAndFire(agendaGroup, Collections.singletonList(grid.getLocation(index)));
+				fireTime += System.nanoTime() - startTime;
+				moves++;
+			}
+			grid.dispose();
+		}
+	}
+
+	/**
+	 * Class used to measure the start of an engine, when the Squares and their
+	 * Neighbor facts are inserted, delegating everything else.
+	 *
+	 */
+	private class InsertTimer implements GameEngine {
+		/** Engine whose start is measured **/
+		private final GameEngine engine;
+
+		public InsertTimer(GameEngine engine) {
+			this.engine = engine;
+		}
+
+		@Override
+		public void start(Grid grid) {
+			long startTime = System.nanoTime();
+			engine.start(grid);
+			insertTime += System.nanoTime() - startTime;
+		}
+
+		@Override
+		public Set<Square> play(String agendaGroup, Collection<Location> locations) {
+			return engine.play(agendaGroup, locations);
+		}
+
+		@Override
+		public void dispose() {
+			engine.dispose();
+		}
+	}
+
+	/**
+	 * Method to obtain the indexes of the cells of a grid in random order.
+	 *
+	 * @param size   The number of cells of the grid.
+	 * @param random The random source.
+	 * @return The shuffled indexes.
+	 */
+	private static int[] shuffledCells(int size, SplittableRandom random) {
+		int[] cells = new int[size];
+		for (int i = 0; i < size; i++) {
+			cells[i] = i;
+		}
+		for (int i = size - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int cell = cells[i];
+			cells[i] = cells[j];
+			cells[j] = cell;
+		}
+		return cells;
+	}
+}
@@ -0,0 +1,39 @@
+package it.unicam.cs.engine;
+
+import java.util.Collection;
+import java.util.Set;
+
+import it.unicam.cs.model.Grid;
+import it.unicam.cs.model.Location;
+import it.unicam.cs.model.Square;
+
+/**
+ * Interface to represent the engine applying the moves of a game on its Grid.
+ * The moves are named after the agenda groups of the rules (UNCOVER, FLAG,
+ * CHORD), which define their semantics.
+ *
+ */
+public interface GameEngine {
+
+	/**
+	 * Method called once the board of the grid has been populated, before any
+	 * move.
+	 *
+	 * @param grid The grid of the game.
+	 */
+	public void start(Grid grid);
+
+	/**
+	 * Method to make the same move on many locations at once.
+	 *
+	 * @param agendaGroup The agendGroup of the move (UNCOVER, FLAG or CHORD).
+	 * @param locations   The locations of the move.
+	 * @return The Squares changed by the move.
+	 */
+	public Set<Square> play(String agendaGroup, Collection<Location> locations);
+
+	/**
+	 * Method to release the resources of the engine, once its game is over.
+	 */
+	public void dispose();
+}
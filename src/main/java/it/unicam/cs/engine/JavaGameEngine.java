@@ -0,0 +1,106 @@
+package it.unicam.cs.engine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import it.unicam.cs.enumeration.GameState;
+import it.unicam.cs.enumeration.SquareState;
+import it.unicam.cs.enumeration.SquareType;
+import it.unicam.cs.model.Grid;
+import it.unicam.cs.model.Location;
+import it.unicam.cs.model.Number;
+import it.unicam.cs.model.Square;
+
+/**
+ * Class to represent an engine applying the moves directly on the Grid, without
+ * any rule engine. It reproduces the behavior of the rules of mineRules.drl, so
+ * that mass simulations can skip Drools entirely.
+ *
+ */
+public class JavaGameEngine implements GameEngine {
+	/** Grid of the game **/
+	private Grid grid;
+
+	@Override
+	public void start(Grid grid) {
+		this.grid = grid;
+	}
+
+	@Override
+	public Set<Square> play(String agendaGroup, Collection<Location> locations) {
+		switch (agendaGroup) {
+		case "UNCOVER":
+			return grid.uncover(locations);
+		case "FLAG":
+			return flag(locations);
+		case "CHORD":
+			return chord(locations);
+		default:
+			return new LinkedHashSet<Square>();
+		}
+	}
+
+	/**
+	 * Method to flag the covered locations and to unflag the flagged ones, as the
+	 * Flag and Unflag rules would. A location given twice is toggled only once.
+	 *
+	 * @param locations The locations to toggle.
+	 * @return The Squares changed.
+	 */
+	private Set<Square> flag(Collection<Location> locations) {
+		Set<Square> changedSquares = new LinkedHashSet<Square>();
+		for (Location location : new LinkedHashSet<Location>(locations)) {
+			Square square = grid.getSquareAt(grid.getIndex(location));
+			SquareState state = square.getState();
+			if (state == SquareState.COVERED) {
+				square.setState(SquareState.FLAGGED);
+				changedSquares.add(square);
+			} else if (state == SquareState.FLAGGED) {
+				square.setState(SquareState.COVERED);
+				changedSquares.add(square);
+			}
+		}
+		return changedSquares;
+	}
+
+	/**
+	 * Method to uncover the covered neighbors of the uncovered numbers having as
+	 * many flagged neighbors as bombs, as the Chord rule would. The numbers are
+	 * selected before uncovering anything, then their neighbors are uncovered one
+	 * number at a time, from the last one, until a bomb explodes.
+	 *
+	 * @param locations The locations of the numbers.
+	 * @return The Squares changed.
+	 */
+	private Set<Square> chord(Collection<Location> locations) {
+		List<Number> numbers = new ArrayList<Number>();
+		for (Location location : new LinkedHashSet<Location>(locations)) {
+			int index = grid.getIndex(location);
+			if (grid.getType(index) == SquareType.NUMBER && grid.getState(index) == SquareState.UNCOVERED
+					&& grid.getFlaggedNeighboursCount(index) == grid.getNeighbourBombsCount(index)
+					&& grid.getCoveredNeighboursCount(index) > 0) {
+				numbers.add((Number) grid.getSquareAt(index));
+			}
+		}
+		// the rules fire the chords starting from the last location inserted
+		Collections.reverse(numbers);
+		Set<Square> changedSquares = new LinkedHashSet<Square>();
+		for (Number number : numbers) {
+			changedSquares.addAll(grid.uncover(number.getCoveredNeighbourLocations()));
+			if (grid.getGameState() == GameState.LOSS) {
+				// as the Uncover Bomb rule, the first bomb stops the other chords
+				break;
+			}
+		}
+		return changedSquares;
+	}
+
+	@Override
+	public void dispose() {
+		// nothing to release
+	}
+}
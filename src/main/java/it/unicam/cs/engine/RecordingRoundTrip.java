@@ -0,0 +1,104 @@
+package it.unicam.cs.engine;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.SplittableRandom;
+
+import it.unicam.cs.enumeration.Difficulty;
+import it.unicam.cs.enumeration.GameState;
+import it.unicam.cs.enumeration.SquareState;
+import it.unicam.cs.enumeration.SquareType;
+import it.unicam.cs.model.Configuration;
+import it.unicam.cs.model.Grid;
+import it.unicam.cs.utils.DroolsUtils;
+import it.unicam.cs.utils.SessionRecorder;
+
+/**
+ * Class used to check that the log of a SessionRecorder can be replayed: random
+ * games are recorded, every grid being populated again halfway through its first
+ * game, and the log is then replayed by a SessionReplayer, which must find the
+ * same rules fired and Squares changed by every move.
+ *
+ */
+public class RecordingRoundTrip {
+	/** Maximum number of moves of a game **/
+	private static final int MAX_MOVES = 60;
+
+	/** Random source of the configurations, locations and moves **/
+	private final SplittableRandom random;
+
+	public RecordingRoundTrip(long seed) {
+		this.random = new SplittableRandom(seed);
+	}
+
+	/**
+	 * Method to run the round trip.
+	 *
+	 * @param args The number of grids (20 if not given) and the seed (1 if not
+	 *             given).
+	 * @throws IOException If the log cannot be written or read.
+	 */
+	public static void main(String[] args) throws IOException {
+		// to make Drools work with Java >= 8
+		System.setProperty("java.version", "1.8");
+		int grids = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 1L;
+		Path file = Files.createTempFile("minesweeper", ".log");
+		SessionRecorder recorder = new SessionRecorder(file);
+		RecordingRoundTrip roundTrip = new RecordingRoundTrip(seed);
+		for (int grid = 0; grid < grids; grid++) {
+			roundTrip.record(recorder);
+		}
+		recorder.close();
+		SessionReplayer replayer = new SessionReplayer();
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			replayer.replay(input);
+		}
+		Files.delete(file);
+		System.out.println(replayer.getReplayedGames() + " games, " + replayer.getMoves() + " moves, "
+				+ replayer.getMismatches() + " mismatches");
+		System.exit(replayer.getMismatches() == 0 && replayer.getReplayedGames() == 2 * grids ? 0 : 1);
+	}
+
+	/**
+	 * Method to record two games on the same grid, the second one starting when
+	 * the grid is populated again in the middle of the first one.
+	 *
+	 * @param recorder The recorder of the games.
+	 */
+	private void record(SessionRecorder recorder) {
+		Difficulty[] difficulties = Difficulty.values();
+		Configuration config = difficulties[random.nextInt(difficulties.length)].getConfiguration();
+		DroolsUtils droolsUtils = new DroolsUtils();
+		droolsUtils.setRecorder(recorder);
+		Grid grid = new Grid(config, random.nextLong(), new DroolsGameEngine(droolsUtils));
+		play(grid, MAX_MOVES / 2);
+		play(grid, MAX_MOVES);
+		grid.dispose();
+	}
+
+	/**
+	 * Method to populate a grid and play random moves on it, flagging most of the
+	 * bombs and uncovering the other Squares.
+	 *
+	 * @param grid  The grid to play.
+	 * @param moves The maximum number of moves.
+	 */
+	private void play(Grid grid, int moves) {
+		int rows = grid.getConfig().getN_ROWS();
+		int columns = grid.getConfig().getN_COLUMNS();
+		grid.populateSafeGrid(grid.getLocation(random.nextInt(rows), random.nextInt(columns)));
+		for (int move = 0; move < moves && grid.getGameState() == GameState.ONGOING; move++) {
+			int index = random.nextInt(rows * columns);
+			if (grid.getState(index) == SquareState.UNCOVERED) {
+				continue;
+			}
+			boolean flag = grid.getType(index) == SquareType.BOMB && random.nextInt(10) > 0;
+			grid.insertAllAndFire(flag ? "FLAG" : "UNCOVER", Collections.singletonList(grid.getLocation(index)));
+		}
+	}
+}
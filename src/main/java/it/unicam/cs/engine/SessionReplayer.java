@@ -0,0 +1,279 @@
+package it.unicam.cs.engine;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.kie.api.event.rule.AfterMatchFiredEvent;
+import org.kie.api.event.rule.DefaultAgendaEventListener;
+
+import it.unicam.cs.enumeration.FactEquality;
+import it.unicam.cs.enumeration.SafeArea;
+import it.unicam.cs.enumeration.SquareState;
+import it.unicam.cs.model.Configuration;
+import it.unicam.cs.model.Grid;
+import it.unicam.cs.model.Location;
+import it.unicam.cs.model.Square;
+import it.unicam.cs.utils.DroolsUtils;
+import it.unicam.cs.utils.SessionRecorder;
+import lombok.Getter;
+
+/**
+ * Class used to replay the games recorded by a SessionRecorder: every game is
+ * played again on a fresh session, with the same grid and moves, checking that
+ * the rules fired, in the same order, and the Squares changed by every move
+ * are the same of the log. The first rule fired differently is reported.
+ *
+ */
+public class SessionReplayer {
+	/** Games being replayed, by number **/
+	private final Map<Integer, ReplayedGame> games = new HashMap<Integer, ReplayedGame>();
+	/** Names of the rules and agenda groups, by number **/
+	private final Map<Integer, String> symbols = new HashMap<Integer, String>();
+	/** Number of games replayed **/
+	@Getter
+	private int replayedGames = 0;
+	/** Number of moves replayed **/
+	@Getter
+	private int moves = 0;
+	/** Number of moves whose effects differ from the log **/
+	@Getter
+	private int mismatches = 0;
+
+	/**
+	 * Method to replay a log.
+	 *
+	 * @param args The file of the log.
+	 * @throws IOException If the log cannot be read.
+	 */
+	public static void main(String[] args) throws IOException {
+		// to make Drools work with Java >= 8
+		System.setProperty("java.version", "1.8");
+		SessionReplayer replayer = new SessionReplayer();
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(Paths.get(args[0]))))) {
+			replayer.replay(input);
+		}
+		System.out.println(replayer.replayedGames + " games, " + replayer.moves + " moves, " + replayer.mismatches + " mismatches");
+		System.exit(replayer.mismatches == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Method to replay all the records of a log.
+	 *
+	 * @param input The input of the log.
+	 * @throws IOException If the log cannot be read or is not valid.
+	 */
+	public void replay(DataInputStream input) throws IOException {
+		while (true) {
+			byte type;
+			try {
+				type = input.readByte();
+			} catch (EOFException e) {
+				break;
+			}
+			if (type == SessionRecorder.HEADER) {
+				if (input.readInt() != SessionRecorder.MAGIC || SessionRecorder.readVarInt(input) != SessionRecorder.VERSION) {
+					throw new IOException("Unsupported log");
+				}
+				// the games of the previous recorder can no longer continue
+				endGames();
+				symbols.clear();
+				continue;
+			}
+			if (type == SessionRecorder.SYMBOL) {
+				int symbol = SessionRecorder.readVarInt(input);
+				symbols.put(symbol, input.readUTF());
+				continue;
+			}
+			int gameId = SessionRecorder.readVarInt(input);
+			switch (type) {
+			case SessionRecorder.GAME:
+				Configuration config = new Configuration(SessionRecorder.readVarInt(input), SessionRecorder.readVarInt(input),
+						SessionRecorder.readVarInt(input));
+				long seed = input.readLong();
+				long boardSeed = input.readLong();
+				int firstRow = SessionRecorder.readVarInt(input);
+				int firstColumn = SessionRecorder.readVarInt(input);
+				SafeArea safeArea = SafeArea.values()[input.readByte()];
+				FactEquality equality = FactEquality.values()[input.readByte()];
+				boolean floodFill = input.readBoolean();
+				ReplayedGame previous = games.put(gameId,
+						new ReplayedGame(gameId, config, seed, boardSeed, firstRow, firstColumn, safeArea, equality, floodFill));
+				if (previous != null) {
+					previous.end();
+				}
+				break;
+			case SessionRecorder.MOVE:
+				String agendaGroup = symbols.get(SessionRecorder.readVarInt(input));
+				int count = SessionRecorder.readVarInt(input);
+				List<Location> locations = new ArrayList<Location>(count);
+				for (int i = 0; i < count; i++) {
+					locations.add(new Location(SessionRecorder.readVarInt(input), SessionRecorder.readVarInt(input)));
+				}
+				getGame(gameId).play(agendaGroup, locations);
+				break;
+			case SessionRecorder.FIRE:
+				String rule = symbols.get(SessionRecorder.readVarInt(input));
+				getGame(gameId).expectedFires.add(rule);
+				break;
+			case SessionRecorder.CHANGE:
+				int index = SessionRecorder.readVarInt(input);
+				getGame(gameId).expectedChanges.put(index, SquareState.values()[input.readByte()]);
+				break;
+			case SessionRecorder.END:
+				getGame(gameId).end();
+				games.remove(gameId);
+				break;
+			default:
+				throw new IOException("Unknown record " + type);
+			}
+		}
+		endGames();
+	}
+
+	/**
+	 * Method to obtain a game being replayed.
+	 *
+	 * @param gameId The number of the game.
+	 * @return The game.
+	 * @throws IOException If the game did not start.
+	 */
+	private ReplayedGame getGame(int gameId) throws IOException {
+		ReplayedGame game = games.get(gameId);
+		if (game == null) {
+			throw new IOException("Record of game " + gameId + " before its start");
+		}
+		return game;
+	}
+
+	/**
+	 * Method to end all the games being replayed, as the log ends without their
+	 * END records.
+	 */
+	private void endGames() {
+		games.values().forEach(ReplayedGame::end);
+		games.clear();
+	}
+
+	/**
+	 * Class to represent a game being replayed, with the effects expected from its
+	 * last move.
+	 *
+	 */
+	private class ReplayedGame {
+		/** Number of the game in the log **/
+		private final int gameId;
+		/** Grid of the game, played on a fresh session **/
+		private final Grid grid;
+		/** Description of the last move **/
+		private String lastMove;
+		/** Squares changed by the last move on the fresh session **/
+		private Set<Square> changedSquares;
+		/** Names of the rules fired by the last move on the fresh session, in order **/
+		private final List<String> fires = new ArrayList<String>();
+		/** Names of the rules fired by the last move according to the log, in order **/
+		private final List<String> expectedFires = new ArrayList<String>();
+		/** States of the Squares changed by the last move according to the log, by index **/
+		private final Map<Integer, SquareState> expectedChanges = new HashMap<Integer, SquareState>();
+
+		public ReplayedGame(int gameId, Configuration config, long seed, long boardSeed, int firstRow, int firstColumn,
+				SafeArea safeArea, FactEquality equality, boolean floodFill) {
+			this.gameId = gameId;
+			DroolsUtils droolsUtils = new DroolsUtils(equality);
+			droolsUtils.setRecorder(null);
+			this.grid = new Grid(config, seed, new DroolsGameEngine(droolsUtils));
+			this.grid.setFloodFill(floodFill);
+			this.grid.populateSafeGrid(grid.getLocation(firstRow, firstColumn), safeArea, boardSeed);
+			droolsUtils.getKSession().addEventListener(new DefaultAgendaEventListener() {
+
+				@Override
+				public void afterMatchFired(AfterMatchFiredEvent event) {
+					fires.add(event.getMatch().getRule().getName());
+				}
+			});
+			replayedGames++;
+		}
+
+		/**
+		 * Method to play a move, after checking the effects of the previous one.
+		 *
+		 * @param agendaGroup The agendGroup of the move.
+		 * @param locations   The locations of the move.
+		 */
+		public void play(String agendaGroup, List<Location> locations) {
+			check();
+			moves++;
+			lastMove = agendaGroup + " " + locations;
+			changedSquares = grid.insertAllAndFire(agendaGroup, locations);
+		}
+
+		/**
+		 * Method to end the game, after checking the effects of its last move.
+		 */
+		public void end() {
+			check();
+			grid.dispose();
+		}
+
+		/**
+		 * Method to check that the last move had the same effects of the log.
+		 */
+		private void check() {
+			if (lastMove != null) {
+				Set<Integer> changedIndexes = changedSquares.stream().map(Square::getIndex).collect(Collectors.toSet());
+				boolean sameStates = expectedChanges.entrySet().stream().allMatch(e -> grid.getState(e.getKey()) == e.getValue());
+				int firstDifferentFire = getFirstDifference(fires, expectedFires);
+				if (firstDifferentFire >= 0 || !sameStates || !changedIndexes.equals(expectedChanges.keySet())) {
+					mismatches++;
+					System.out.println("Mismatch in game " + gameId + " move " + lastMove + ": " + fires.size() + " fires and "
+							+ changedIndexes.size() + " changes instead of " + expectedFires.size() + " and "
+							+ expectedChanges.size() + (sameStates ? "" : ", different states")
+							+ (firstDifferentFire < 0 ? ""
+									: ", fire " + (firstDifferentFire + 1) + " is " + getFire(fires, firstDifferentFire)
+											+ " instead of " + getFire(expectedFires, firstDifferentFire)));
+				}
+			}
+			lastMove = null;
+			fires.clear();
+			expectedFires.clear();
+			expectedChanges.clear();
+		}
+
+		/**
+		 * Method to find the first position where two sequences of fired rules
+		 * differ.
+		 *
+		 * @param fires         The rules fired on the fresh session.
+		 * @param expectedFires The rules fired according to the log.
+		 * @return The first position where the rules differ, -1 if they are the same.
+		 */
+		private int getFirstDifference(List<String> fires, List<String> expectedFires) {
+			for (int i = 0; i < Math.max(fires.size(), expectedFires.size()); i++) {
+				if (i >= fires.size() || i >= expectedFires.size() || !fires.get(i).equals(expectedFires.get(i))) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Method to describe a fired rule.
+		 *
+		 * @param fires    The fired rules.
+		 * @param position The position of the rule.
+		 * @return The name of the rule, or "none" if fewer rules were fired.
+		 */
+		private String getFire(List<String> fires, int position) {
+			return position < fires.size() ? "\"" + fires.get(position) + "\"" : "none";
+		}
+	}
+}
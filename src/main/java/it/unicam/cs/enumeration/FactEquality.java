@@ -0,0 +1,22 @@
+package it.unicam.cs.enumeration;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Enumeration to represent how the working memory tells two facts apart
+ * (Equality, Identity), each one having its own KieBase declared in the
+ * kmodule.
+ *
+ */
+@Getter
+@AllArgsConstructor
+public enum FactEquality {
+	/** Facts are compared through their equals method, equal facts are inserted only once **/
+	EQUALITY("rules"),
+	/** Facts are compared by reference, which skips hashing and comparing them on every insert **/
+	IDENTITY("rules-identity");
+
+	/** Name of the KieBase declared in the kmodule **/
+	private String kBaseName;
+}
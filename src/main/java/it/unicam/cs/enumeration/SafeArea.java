@@ -0,0 +1,12 @@
+package it.unicam.cs.enumeration;
+
+/**
+ * Enumeration to represent the area around the first clicked Square that is kept free of bombs (Square, Neighborhood).
+ *
+ */
+public enum SafeArea {
+	/** Only the clicked Square is free of bombs **/
+	SQUARE,
+	/** The clicked Square and all its neighbors are free of bombs **/
+	NEIGHBORHOOD;
+}
@@ -0,0 +1,74 @@
+package it.unicam.cs.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.Getter;
+
+/**
+ * Class to represent the precomputed neighbors of every cell of a grid, stored
+ * in compressed form: the neighbors of the cell having index <code>i</code> are
+ * <code>neighbours[offsets[i]]</code> ... <code>neighbours[offsets[i + 1] - 1]</code>.
+ * The table only depends on the size of the grid, so it is shared by all the
+ * grids having the same number of rows and columns.
+ *
+ */
+@Getter
+public class Adjacency {
+	/** Tables already computed, by size of the grid **/
+	private static final Map<Long, Adjacency> CACHE = new ConcurrentHashMap<Long, Adjacency>();
+
+	/** Position of the first neighbor of each cell inside the neighbours array **/
+	private final int[] offsets;
+	/** Indexes of the neighbors of all the cells **/
+	private final int[] neighbours;
+
+	private Adjacency(int nRows, int nColumns) {
+		this.offsets = new int[nRows * nColumns + 1];
+		int[] neighbours = new int[nRows * nColumns * 8];
+		int size = 0;
+		for (int row = 0; row < nRows; row++) {
+			for (int column = 0; column < nColumns; column++) {
+				this.offsets[row * nColumns + column] = size;
+				for (int r = -1; r <= 1; r++) {
+					for (int c = -1; c <= 1; c++) {
+						int newRow = row + r;
+						int newColumn = column + c;
+						if (!(r == 0 && c == 0) && newRow >= 0 && newRow < nRows && newColumn >= 0 && newColumn < nColumns) {
+							neighbours[size++] = newRow * nColumns + newColumn;
+						}
+					}
+				}
+			}
+		}
+		this.offsets[nRows * nColumns] = size;
+		this.neighbours = Arrays.copyOf(neighbours, size);
+	}
+
+	/**
+	 * Method to obtain the adjacency table of a grid having a certain size.
+	 *
+	 * @param nRows    The number of rows of the grid.
+	 * @param nColumns The number of columns of the grid.
+	 * @return The adjacency table.
+	 */
+	public static Adjacency of(int nRows, int nColumns) {
+		return CACHE.computeIfAbsent(((long) nRows << 32) | nColumns, k -> new Adjacency(nRows, nColumns));
+	}
+
+	/**
+	 * Method to copy the neighbors of a cell into the given array, without
+	 * allocating anything.
+	 *
+	 * @param index  The index of the cell.
+	 * @param result The array (of at least 8 elements) to fill.
+	 * @return The number of neighbors copied into the array.
+	 */
+	public int getNeighbours(int index, int[] result) {
+		int start = offsets[index];
+		int count = offsets[index + 1] - start;
+		System.arraycopy(neighbours, start, result, 0, count);
+		return count;
+	}
+}
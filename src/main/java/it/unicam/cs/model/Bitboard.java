@@ -0,0 +1,327 @@
+package it.unicam.cs.model;
+
+import it.unicam.cs.enumeration.SquareState;
+import lombok.Getter;
+
+/**
+ * Class to represent the content of the grid as layers of bits, one long every
+ * 64 columns of a row: the bit of the cell at (row, column) is the bit
+ * <code>column % 64</code> of the word <code>row * words + column / 64</code>.
+ * Questions about many cells at once (how many covered neighbors, which
+ * Squares are on the frontier) become shifts, ANDs and bit counts over whole
+ * words.
+ * <p>
+ * Neighbor counts are returned bit-sliced: four layers holding the bits 1, 2,
+ * 4 and 8 of the count of every cell.
+ *
+ */
+public class Bitboard {
+	/** Number of bits used to represent a neighbor count (from 0 to 8) **/
+	public static final int COUNT_BITS = 4;
+
+	/** Number of rows of the grid **/
+	@Getter
+	private final int nRows;
+	/** Number of columns of the grid **/
+	@Getter
+	private final int nColumns;
+	/** Number of words of a row **/
+	@Getter
+	private final int words;
+	/** Cells of the grid **/
+	@Getter
+	private final long[] cells;
+	/** Cells containing a bomb **/
+	@Getter
+	private final long[] mines;
+	/** Cells that are covered (and not flagged) **/
+	@Getter
+	private final long[] covered;
+	/** Cells that are flagged **/
+	@Getter
+	private final long[] flagged;
+	/** Cells that are uncovered **/
+	@Getter
+	private final long[] uncovered;
+	/** Number of bombs in the neighbors of each cell, bit-sliced **/
+	@Getter
+	private final long[][] neighbourBombs;
+
+	public Bitboard(int nRows, int nColumns) {
+		this.nRows = nRows;
+		this.nColumns = nColumns;
+		this.words = (nColumns + 63) >>> 6;
+		this.cells = new long[nRows * words];
+		this.mines = new long[nRows * words];
+		this.covered = new long[nRows * words];
+		this.flagged = new long[nRows * words];
+		this.uncovered = new long[nRows * words];
+		this.neighbourBombs = new long[COUNT_BITS][nRows * words];
+		for (int row = 0; row < nRows; row++) {
+			for (int w = 0; w < words; w++) {
+				int columns = Math.min(64, nColumns - (w << 6));
+				cells[row * words + w] = columns == 64 ? -1L : (1L << columns) - 1;
+			}
+		}
+		System.arraycopy(cells, 0, covered, 0, cells.length);
+	}
+
+	/**
+	 * Method to obtain the index of the word containing a cell.
+	 *
+	 * @param index The index (row * N_COLUMNS + column) of the cell.
+	 * @return The index of the word.
+	 */
+	private int getWord(int index) {
+		return (index / nColumns) * words + ((index % nColumns) >>> 6);
+	}
+
+	/**
+	 * Method to obtain the bit of a cell inside its word.
+	 *
+	 * @param index The index (row * N_COLUMNS + column) of the cell.
+	 * @return The mask having only the bit of the cell set.
+	 */
+	private long getBit(int index) {
+		return 1L << ((index % nColumns) & 63);
+	}
+
+	/**
+	 * Method to mark a cell as containing a bomb.
+	 *
+	 * @param index The index of the cell.
+	 */
+	public void setMine(int index) {
+		mines[getWord(index)] |= getBit(index);
+	}
+
+	/**
+	 * Method to set the number of bombs in the neighbors of a cell.
+	 *
+	 * @param index The index of the cell.
+	 * @param count The number of bombs.
+	 */
+	public void setNeighbourBombsCount(int index, int count) {
+		int word = getWord(index);
+		long bit = getBit(index);
+		for (int k = 0; k < COUNT_BITS; k++) {
+			if ((count >>> k & 1) != 0) {
+				neighbourBombs[k][word] |= bit;
+			} else {
+				neighbourBombs[k][word] &= ~bit;
+			}
+		}
+	}
+
+	/**
+	 * Method to move a cell to the layer of its new state.
+	 *
+	 * @param index The index of the cell.
+	 * @param state The new state of the cell.
+	 */
+	public void setState(int index, SquareState state) {
+		int word = getWord(index);
+		long bit = getBit(index);
+		covered[word] &= ~bit;
+		flagged[word] &= ~bit;
+		uncovered[word] &= ~bit;
+		switch (state) {
+		case COVERED:
+			covered[word] |= bit;
+			break;
+		case FLAGGED:
+			flagged[word] |= bit;
+			break;
+		case UNCOVERED:
+			uncovered[word] |= bit;
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Method to read a word of a layer, shifted by one column.
+	 *
+	 * @param layer The layer to read.
+	 * @param row   The row of the word (can be outside the grid).
+	 * @param w     The index of the word inside the row.
+	 * @param shift -1 to move every cell to the right of its column, 1 to move it
+	 *              to the left, 0 to read the word as it is.
+	 * @return The word read, 0 if the row is outside the grid.
+	 */
+	private long getShiftedWord(long[] layer, int row, int w, int shift) {
+		if (row < 0 || row >= nRows) {
+			return 0L;
+		}
+		int word = row * words + w;
+		if (shift < 0) {
+			return (layer[word] << 1) | (w > 0 ? layer[word - 1] >>> 63 : 0L);
+		} else if (shift > 0) {
+			return (layer[word] >>> 1) | (w < words - 1 ? layer[word + 1] << 63 : 0L);
+		}
+		return layer[word];
+	}
+
+	/**
+	 * Method to count, for every cell, how many of its neighbors are set in a
+	 * layer. The eight shifted copies of the layer are added with a bit-sliced
+	 * adder, so each word counts 64 cells at once.
+	 *
+	 * @param layer The layer to count.
+	 * @return The counts, bit-sliced into COUNT_BITS layers.
+	 */
+	public long[][] countNeighbours(long[] layer) {
+		long[][] counts = new long[COUNT_BITS][layer.length];
+		for (int row = 0; row < nRows; row++) {
+			for (int w = 0; w < words; w++) {
+				long b0 = 0L, b1 = 0L, b2 = 0L, b3 = 0L;
+				for (int r = row - 1; r <= row + 1; r++) {
+					for (int shift = -1; shift <= 1; shift++) {
+						if (r == row && shift == 0) {
+							continue;
+						}
+						long carry = getShiftedWord(layer, r, w, shift);
+						long t = b0 & carry;
+						b0 ^= carry;
+						carry = t;
+						t = b1 & carry;
+						b1 ^= carry;
+						carry = t;
+						t = b2 & carry;
+						b2 ^= carry;
+						b3 |= t;
+					}
+				}
+				int word = row * words + w;
+				counts[0][word] = b0 & cells[word];
+				counts[1][word] = b1 & cells[word];
+				counts[2][word] = b2 & cells[word];
+				counts[3][word] = b3 & cells[word];
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * Method to find the cells having the same value in two bit-sliced counts.
+	 *
+	 * @param first  The first counts.
+	 * @param second The second counts.
+	 * @return The layer of the cells where the counts are equal.
+	 */
+	public long[] equal(long[][] first, long[][] second) {
+		long[] result = new long[cells.length];
+		for (int word = 0; word < cells.length; word++) {
+			long differences = 0L;
+			for (int k = 0; k < COUNT_BITS; k++) {
+				differences |= first[k][word] ^ second[k][word];
+			}
+			result[word] = ~differences & cells[word];
+		}
+		return result;
+	}
+
+	/**
+	 * Method to find the cells having at least one neighbor set in a layer.
+	 *
+	 * @param layer The considered layer.
+	 * @return The layer of the cells next to the cells of the given layer.
+	 */
+	public long[] dilate(long[] layer) {
+		long[] result = new long[layer.length];
+		for (int row = 0; row < nRows; row++) {
+			for (int w = 0; w < words; w++) {
+				long word = 0L;
+				for (int r = row - 1; r <= row + 1; r++) {
+					word |= getShiftedWord(layer, r, w, -1) | getShiftedWord(layer, r, w, 0) | getShiftedWord(layer, r, w, 1);
+				}
+				result[row * words + w] = word & cells[row * words + w];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Method to obtain the cells having a number (at least one bomb in the
+	 * neighbors) and not containing a bomb.
+	 *
+	 * @return The layer of the numbers.
+	 */
+	public long[] getNumbers() {
+		long[] result = new long[cells.length];
+		for (int word = 0; word < cells.length; word++) {
+			long nonZero = 0L;
+			for (int k = 0; k < COUNT_BITS; k++) {
+				nonZero |= neighbourBombs[k][word];
+			}
+			result[word] = nonZero & ~mines[word];
+		}
+		return result;
+	}
+
+	/**
+	 * Method to compute the intersection of two layers.
+	 *
+	 * @param first  The first layer.
+	 * @param second The second layer.
+	 * @return The layer of the cells set in both layers.
+	 */
+	public static long[] and(long[] first, long[] second) {
+		long[] result = new long[first.length];
+		for (int word = 0; word < first.length; word++) {
+			result[word] = first[word] & second[word];
+		}
+		return result;
+	}
+
+	/**
+	 * Method to compute the union of two layers.
+	 *
+	 * @param first  The first layer.
+	 * @param second The second layer.
+	 * @return The layer of the cells set in at least one layer.
+	 */
+	public static long[] or(long[] first, long[] second) {
+		long[] result = new long[first.length];
+		for (int word = 0; word < first.length; word++) {
+			result[word] = first[word] | second[word];
+		}
+		return result;
+	}
+
+	/**
+	 * Method to count the cells set in a layer.
+	 *
+	 * @param layer The considered layer.
+	 * @return The number of cells set.
+	 */
+	public static int count(long[] layer) {
+		int count = 0;
+		for (long word : layer) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	/**
+	 * Method to obtain the indexes of the cells set in a layer, in ascending
+	 * order.
+	 *
+	 * @param layer The considered layer.
+	 * @return The indexes (row * N_COLUMNS + column) of the cells.
+	 */
+	public int[] getIndexes(long[] layer) {
+		int[] indexes = new int[count(layer)];
+		int i = 0;
+		for (int word = 0; word < layer.length; word++) {
+			long bits = layer[word];
+			while (bits != 0) {
+				int column = ((word % words) << 6) + Long.numberOfTrailingZeros(bits);
+				indexes[i++] = (word / words) * nColumns + column;
+				bits &= bits - 1;
+			}
+		}
+		return indexes;
+	}
+}
@@ -0,0 +1,216 @@
+package it.unicam.cs.model;
+
+import java.util.stream.IntStream;
+
+import it.unicam.cs.enumeration.SquareState;
+import it.unicam.cs.enumeration.SquareType;
+import lombok.Getter;
+
+/**
+ * Abstract class to represent the content of the grid (type, number of
+ * neighbour bombs and state of every Square) in a packed form, where each cell
+ * is identified by its index <code>row * N_COLUMNS + column</code>.
+ *
+ */
+public abstract class Board {
+	protected static final SquareType[] TYPES = SquareType.values();
+	protected static final SquareState[] STATES = SquareState.values();
+	/** Counter of the neighbors that are flagged **/
+	protected static final int FLAGGED_NEIGHBOURS = 0;
+	/** Counter of the neighbors that are neither covered nor flagged **/
+	protected static final int OPENED_NEIGHBOURS = 1;
+
+	/** Number of rows of the board **/
+	@Getter
+	private final int nRows;
+	/** Number of columns of the board **/
+	@Getter
+	private final int nColumns;
+	/** Number of cells for each SquareState, updated on every state transition **/
+	private final int[] stateCounts = new int[STATES.length];
+	/** Number of state transitions so far, to let who follows the board detect its changes **/
+	@Getter
+	private long modifications;
+
+	protected Board(int nRows, int nColumns) {
+		this.nRows = nRows;
+		this.nColumns = nColumns;
+		this.stateCounts[SquareState.COVERED.ordinal()] = nRows * nColumns;
+	}
+
+	/**
+	 * Method to obtain the number of cells of the board.
+	 *
+	 * @return The number of cells.
+	 */
+	public int getSize() {
+		return nRows * nColumns;
+	}
+
+	/**
+	 * Method to obtain the index of a cell from its row and column.
+	 *
+	 * @param row    The row of the cell.
+	 * @param column The column of the cell.
+	 * @return The index of the cell.
+	 */
+	public int getIndex(int row, int column) {
+		return row * nColumns + column;
+	}
+
+	public abstract SquareType getType(int index);
+
+	public abstract int getNeighbourBombsCount(int index);
+
+	public SquareState getState(int index) {
+		return STATES[readState(index)];
+	}
+
+	public void setState(int index, SquareState state) {
+		SquareState oldState = getState(index);
+		this.stateCounts[oldState.ordinal()]--;
+		this.stateCounts[state.ordinal()]++;
+		writeState(index, (byte) state.ordinal());
+		if (oldState != state) {
+			modifications++;
+			updateNeighbourCounters(index, getCounter(oldState), getCounter(state));
+		}
+	}
+
+	/**
+	 * Method to obtain the neighbor counter affected by a state.
+	 *
+	 * @param state The considered state.
+	 * @return The counter, -1 for the covered state.
+	 */
+	private static int getCounter(SquareState state) {
+		switch (state) {
+		case COVERED:
+			return -1;
+		case FLAGGED:
+			return FLAGGED_NEIGHBOURS;
+		default:
+			return OPENED_NEIGHBOURS;
+		}
+	}
+
+	/**
+	 * Method to move a cell from a counter to another one in all its neighbors.
+	 *
+	 * @param index      The index of the cell whose state changed.
+	 * @param oldCounter The counter of the old state, -1 if none.
+	 * @param newCounter The counter of the new state, -1 if none.
+	 */
+	private void updateNeighbourCounters(int index, int oldCounter, int newCounter) {
+		if (oldCounter == newCounter) {
+			return;
+		}
+		int row = index / nColumns;
+		int column = index % nColumns;
+		for (int r = Math.max(0, row - 1); r <= Math.min(nRows - 1, row + 1); r++) {
+			for (int c = Math.max(0, column - 1); c <= Math.min(nColumns - 1, column + 1); c++) {
+				if (r == row && c == column) {
+					continue;
+				}
+				int neighbour = getIndex(r, c);
+				if (oldCounter >= 0) {
+					addToCounter(neighbour, oldCounter, -1);
+				}
+				if (newCounter >= 0) {
+					addToCounter(neighbour, newCounter, 1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Method to obtain the number of neighbors of a cell (8, or less on the
+	 * borders of the board).
+	 *
+	 * @param index The index of the cell.
+	 * @return The number of neighbors.
+	 */
+	public int getNeighboursCount(int index) {
+		int row = index / nColumns;
+		int column = index % nColumns;
+		int rows = Math.min(nRows - 1, row + 1) - Math.max(0, row - 1) + 1;
+		int columns = Math.min(nColumns - 1, column + 1) - Math.max(0, column - 1) + 1;
+		return rows * columns - 1;
+	}
+
+	/**
+	 * Method to obtain the number of flagged neighbors of a cell, in constant
+	 * time.
+	 *
+	 * @param index The index of the cell.
+	 * @return The number of flagged neighbors.
+	 */
+	public int getFlaggedNeighboursCount(int index) {
+		return readCounter(index, FLAGGED_NEIGHBOURS);
+	}
+
+	/**
+	 * Method to obtain the number of covered (and not flagged) neighbors of a
+	 * cell, in constant time.
+	 *
+	 * @param index The index of the cell.
+	 * @return The number of covered neighbors.
+	 */
+	public int getCoveredNeighboursCount(int index) {
+		return getNeighboursCount(index) - readCounter(index, FLAGGED_NEIGHBOURS) - readCounter(index, OPENED_NEIGHBOURS);
+	}
+
+	/**
+	 * Method to obtain the number of cells being in a certain state, in constant
+	 * time.
+	 *
+	 * @param state The considered state.
+	 * @return The number of cells in that state.
+	 */
+	public int getStateCount(SquareState state) {
+		return stateCounts[state.ordinal()];
+	}
+
+	/**
+	 * Method to obtain the indexes of the cells whose state may differ from
+	 * covered. All the other cells are covered.
+	 *
+	 * @return The Stream of indexes.
+	 */
+	public abstract IntStream getTouchedIndexes();
+
+	/**
+	 * Method to read the ordinal of the state of a cell.
+	 *
+	 * @param index The index of the cell.
+	 * @return The ordinal of the SquareState of the cell.
+	 */
+	protected abstract byte readState(int index);
+
+	/**
+	 * Method to write the ordinal of the state of a cell.
+	 *
+	 * @param index The index of the cell.
+	 * @param state The ordinal of the new SquareState of the cell.
+	 */
+	protected abstract void writeState(int index, byte state);
+
+	/**
+	 * Method to read a neighbor counter of a cell. Every counter starts from 0,
+	 * as all the cells are covered at the beginning.
+	 *
+	 * @param index   The index of the cell.
+	 * @param counter The counter (FLAGGED_NEIGHBOURS or OPENED_NEIGHBOURS).
+	 * @return The value of the counter.
+	 */
+	protected abstract int readCounter(int index, int counter);
+
+	/**
+	 * Method to change a neighbor counter of a cell.
+	 *
+	 * @param index   The index of the cell.
+	 * @param counter The counter (FLAGGED_NEIGHBOURS or OPENED_NEIGHBOURS).
+	 * @param delta   The value to add to the counter.
+	 */
+	protected abstract void addToCounter(int index, int counter, int delta);
+}
@@ -8,8 +8,8 @@ import it.unicam.cs.enumeration.SquareType;
  */
 public class Bomb extends Square {
 
-	public Bomb(Location location) {
-		super(SquareType.BOMB, location);
+	public Bomb(Grid grid, int index, Location location) {
+		super(SquareType.BOMB, grid, index, location);
 	}
 	
 	@Override
@@ -0,0 +1,495 @@
+package it.unicam.cs.model;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import it.unicam.cs.enumeration.SquareType;
+import lombok.Getter;
+
+/**
+ * Class to represent the content of a very large grid, split into square tiles
+ * of TILE_SIZE x TILE_SIZE cells. A tile is only materialized when one of its
+ * cells is read or changed: until then its Squares are covered and its bombs
+ * are implicit.
+ * <p>
+ * The number of bombs of every tile is drawn when the board is created, with
+ * one hypergeometric draw per tile, while their position inside a tile is drawn
+ * from a random source derived from the seed and the tile, so the board only
+ * depends on the seed, whatever the order in which the tiles are materialized.
+ *
+ */
+public class ChunkedBoard extends Board {
+	/** Size of the side of a tile, expressed as power of two **/
+	public static final int TILE_BITS = 6;
+	/** Number of rows and columns of a tile **/
+	public static final int TILE_SIZE = 1 << TILE_BITS;
+	private static final int TILE_MASK = TILE_SIZE - 1;
+	/** Logarithm of the square root of 2 * PI **/
+	private static final double LN_SQRT_2PI = 0.5 * Math.log(2 * Math.PI);
+
+	/** Number of rows of tiles **/
+	@Getter
+	private final int tileRows;
+	/** Number of columns of tiles **/
+	@Getter
+	private final int tileColumns;
+	/** Seed from which the position of the bombs inside the tiles is derived **/
+	private final long seed;
+	/** Row of the center of the area without bombs **/
+	private final int safeRow;
+	/** Column of the center of the area without bombs **/
+	private final int safeColumn;
+	/** Distance from the center of the cells without bombs **/
+	private final int safeDistance;
+	/** Number of bombs of each tile **/
+	private final int[] tileBombs;
+	/** Bombs of each tile, one bit per cell and one long per row of the tile **/
+	private final long[][] bombs;
+	/** Ordinal of the SquareType of each cell, by tile **/
+	private final byte[][] types;
+	/** Number of bombs in the neighbors of each cell, by tile **/
+	private final byte[][] counts;
+	/** Ordinal of the SquareState of each cell, by tile **/
+	private final byte[][] states;
+	/** Neighbor counters of each cell, by counter and by tile **/
+	private final byte[][][] counters;
+
+	/**
+	 * Constructor to create a board whose bombs are uniformly distributed outside
+	 * a square area around a safe cell.
+	 *
+	 * @param nRows        The number of rows of the board.
+	 * @param nColumns     The number of columns of the board.
+	 * @param nBombs       The number of bombs of the board.
+	 * @param seed         The seed used to place the bombs.
+	 * @param safeRow      The row of the center of the area without bombs.
+	 * @param safeColumn   The column of the center of the area without bombs.
+	 * @param safeDistance The distance from the center of the cells without bombs.
+	 */
+	public ChunkedBoard(int nRows, int nColumns, int nBombs, long seed, int safeRow, int safeColumn, int safeDistance) {
+		super(nRows, nColumns);
+		this.tileRows = (nRows + TILE_MASK) >>> TILE_BITS;
+		this.tileColumns = (nColumns + TILE_MASK) >>> TILE_BITS;
+		this.seed = seed;
+		this.safeRow = safeRow;
+		this.safeColumn = safeColumn;
+		this.safeDistance = safeDistance;
+		int tiles = tileRows * tileColumns;
+		this.tileBombs = new int[tiles];
+		this.bombs = new long[tiles][];
+		this.types = new byte[tiles][];
+		this.counts = new byte[tiles][];
+		this.states = new byte[tiles][];
+		this.counters = new byte[2][tiles][];
+		// draw the number of bombs of each tile among the bombs left to the cells of
+		// the tiles not yet considered
+		long remainingCells = (long) nRows * nColumns - getSafeCellsCount();
+		int remainingBombs = nBombs;
+		SplittableRandom random = new SplittableRandom(seed);
+		for (int tile = 0; tile < tiles && remainingBombs > 0; tile++) {
+			int cells = getTileCandidatesCount(tile);
+			tileBombs[tile] = drawHypergeometric(random, remainingCells, remainingBombs, cells);
+			remainingBombs -= tileBombs[tile];
+			remainingCells -= cells;
+		}
+	}
+
+	/**
+	 * Method to obtain the index of the tile containing a cell.
+	 *
+	 * @param index The index of the cell.
+	 * @return The index of the tile.
+	 */
+	public int getTileIndex(int index) {
+		return getTileIndex(index / getNColumns(), index % getNColumns());
+	}
+
+	/**
+	 * Method to obtain the index of the tile containing a cell.
+	 *
+	 * @param row    The row of the cell.
+	 * @param column The column of the cell.
+	 * @return The index of the tile.
+	 */
+	public int getTileIndex(int row, int column) {
+		return (row >>> TILE_BITS) * tileColumns + (column >>> TILE_BITS);
+	}
+
+	/**
+	 * Method to obtain the indexes of the cells of a tile.
+	 *
+	 * @param tile The index of the tile.
+	 * @return The Stream of indexes of the cells of the tile.
+	 */
+	public IntStream getTileCells(int tile) {
+		int firstRow = (tile / tileColumns) << TILE_BITS;
+		int firstColumn = (tile % tileColumns) << TILE_BITS;
+		int rows = Math.min(TILE_SIZE, getNRows() - firstRow);
+		int columns = Math.min(TILE_SIZE, getNColumns() - firstColumn);
+		return IntStream.range(0, rows * columns).map(i -> getIndex(firstRow + i / columns, firstColumn + i % columns));
+	}
+
+	@Override
+	public SquareType getType(int index) {
+		int tile = getTileIndex(index);
+		if (types[tile] == null) {
+			materialize(tile);
+		}
+		return TYPES[types[tile][getCellIndex(index)]];
+	}
+
+	@Override
+	public int getNeighbourBombsCount(int index) {
+		int tile = getTileIndex(index);
+		if (counts[tile] == null) {
+			materialize(tile);
+		}
+		return counts[tile][getCellIndex(index)];
+	}
+
+	@Override
+	public IntStream getTouchedIndexes() {
+		return IntStream.range(0, states.length).filter(tile -> states[tile] != null).flatMap(this::getTileCells);
+	}
+
+	@Override
+	protected byte readState(int index) {
+		byte[] tileStates = states[getTileIndex(index)];
+		return tileStates == null ? 0 : tileStates[getCellIndex(index)];
+	}
+
+	@Override
+	protected void writeState(int index, byte state) {
+		int tile = getTileIndex(index);
+		if (states[tile] == null) {
+			states[tile] = new byte[TILE_SIZE * TILE_SIZE];
+		}
+		states[tile][getCellIndex(index)] = state;
+	}
+
+	@Override
+	protected int readCounter(int index, int counter) {
+		byte[] tileCounters = counters[counter][getTileIndex(index)];
+		return tileCounters == null ? 0 : tileCounters[getCellIndex(index)];
+	}
+
+	@Override
+	protected void addToCounter(int index, int counter, int delta) {
+		int tile = getTileIndex(index);
+		if (counters[counter][tile] == null) {
+			counters[counter][tile] = new byte[TILE_SIZE * TILE_SIZE];
+		}
+		counters[counter][tile][getCellIndex(index)] += delta;
+	}
+
+	/**
+	 * Method to obtain the position of a cell inside its tile.
+	 *
+	 * @param index The index of the cell.
+	 * @return The index of the cell inside the arrays of the tile.
+	 */
+	private int getCellIndex(int index) {
+		int row = index / getNColumns();
+		int column = index % getNColumns();
+		return ((row & TILE_MASK) << TILE_BITS) | (column & TILE_MASK);
+	}
+
+	/**
+	 * Method to check if a cell belongs to the area without bombs.
+	 *
+	 * @param row    The row of the cell.
+	 * @param column The column of the cell.
+	 * @return True if the cell cannot contain a bomb, false otherwise.
+	 */
+	private boolean isSafe(int row, int column) {
+		return Math.abs(row - safeRow) <= safeDistance && Math.abs(column - safeColumn) <= safeDistance;
+	}
+
+	/**
+	 * Method to count the cells of the board that belong to the area without bombs.
+	 *
+	 * @return The number of cells without bombs.
+	 */
+	private int getSafeCellsCount() {
+		int rows = Math.min(getNRows() - 1, safeRow + safeDistance) - Math.max(0, safeRow - safeDistance) + 1;
+		int columns = Math.min(getNColumns() - 1, safeColumn + safeDistance) - Math.max(0, safeColumn - safeDistance) + 1;
+		return rows * columns;
+	}
+
+	/**
+	 * Method to count the cells of a tile that can contain a bomb, without
+	 * visiting them.
+	 *
+	 * @param tile The index of the tile.
+	 * @return The number of cells that can contain a bomb.
+	 */
+	private int getTileCandidatesCount(int tile) {
+		int firstRow = (tile / tileColumns) << TILE_BITS;
+		int firstColumn = (tile % tileColumns) << TILE_BITS;
+		int lastRow = Math.min(getNRows(), firstRow + TILE_SIZE);
+		int lastColumn = Math.min(getNColumns(), firstColumn + TILE_SIZE);
+		int safeRows = Math.min(lastRow, safeRow + safeDistance + 1) - Math.max(firstRow, safeRow - safeDistance);
+		int safeColumns = Math.min(lastColumn, safeColumn + safeDistance + 1)
+				- Math.max(firstColumn, safeColumn - safeDistance);
+		return (lastRow - firstRow) * (lastColumn - firstColumn) - Math.max(0, safeRows) * Math.max(0, safeColumns);
+	}
+
+	/**
+	 * Method to find the cells of a tile that can contain a bomb.
+	 *
+	 * @param tile       The index of the tile.
+	 * @param candidates The array where to store the positions of the cells inside
+	 *                   the tile.
+	 * @return The number of cells that can contain a bomb.
+	 */
+	private int getTileCandidates(int tile, int[] candidates) {
+		int firstRow = (tile / tileColumns) << TILE_BITS;
+		int firstColumn = (tile % tileColumns) << TILE_BITS;
+		int lastRow = Math.min(getNRows(), firstRow + TILE_SIZE);
+		int lastColumn = Math.min(getNColumns(), firstColumn + TILE_SIZE);
+		int count = 0;
+		for (int row = firstRow; row < lastRow; row++) {
+			for (int column = firstColumn; column < lastColumn; column++) {
+				if (!isSafe(row, column)) {
+					candidates[count++] = ((row & TILE_MASK) << TILE_BITS) | (column & TILE_MASK);
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Method to obtain the bombs of a tile, placing them the first time they are
+	 * requested.
+	 *
+	 * @param tile The index of the tile.
+	 * @return The bombs of the tile, one long per row of the tile.
+	 */
+	private long[] getBombs(int tile) {
+		long[] tileBombsMask = bombs[tile];
+		if (tileBombsMask == null) {
+			tileBombsMask = new long[TILE_SIZE];
+			int[] candidates = new int[TILE_SIZE * TILE_SIZE];
+			int candidatesCount = getTileCandidates(tile, candidates);
+			SplittableRandom random = new SplittableRandom(mix(seed + (tile + 1) * 0x9E3779B97F4A7C15L));
+			// partial Fisher-Yates shuffle of the cells of the tile
+			for (int i = 0; i < tileBombs[tile]; i++) {
+				int j = i + random.nextInt(candidatesCount - i);
+				int bomb = candidates[j];
+				candidates[j] = candidates[i];
+				candidates[i] = bomb;
+				tileBombsMask[bomb >>> TILE_BITS] |= 1L << (bomb & TILE_MASK);
+			}
+			bombs[tile] = tileBombsMask;
+		}
+		return tileBombsMask;
+	}
+
+	/**
+	 * Method to check if a cell contains a bomb.
+	 *
+	 * @param row    The row of the cell.
+	 * @param column The column of the cell.
+	 * @return True if the cell contains a bomb, false otherwise.
+	 */
+	private boolean isBomb(int row, int column) {
+		return (getBombs(getTileIndex(row, column))[row & TILE_MASK] & (1L << (column & TILE_MASK))) != 0;
+	}
+
+	/**
+	 * Method to compute the type and the number of neighbour bombs of the cells
+	 * of a tile, placing the bombs of the tile and of the tiles around it if
+	 * needed.
+	 *
+	 * @param tile The index of the tile.
+	 */
+	private void materialize(int tile) {
+		byte[] tileTypes = new byte[TILE_SIZE * TILE_SIZE];
+		byte[] tileCounts = new byte[TILE_SIZE * TILE_SIZE];
+		int firstRow = (tile / tileColumns) << TILE_BITS;
+		int firstColumn = (tile % tileColumns) << TILE_BITS;
+		int lastRow = Math.min(getNRows(), firstRow + TILE_SIZE);
+		int lastColumn = Math.min(getNColumns(), firstColumn + TILE_SIZE);
+		for (int row = firstRow; row < lastRow; row++) {
+			for (int column = firstColumn; column < lastColumn; column++) {
+				int cell = ((row & TILE_MASK) << TILE_BITS) | (column & TILE_MASK);
+				if (isBomb(row, column)) {
+					tileTypes[cell] = (byte) SquareType.BOMB.ordinal();
+					continue;
+				}
+				int count = 0;
+				for (int r = Math.max(0, row - 1); r <= Math.min(getNRows() - 1, row + 1); r++) {
+					for (int c = Math.max(0, column - 1); c <= Math.min(getNColumns() - 1, column + 1); c++) {
+						if (isBomb(r, c)) {
+							count++;
+						}
+					}
+				}
+				tileTypes[cell] = (byte) (count == 0 ? SquareType.EMPTY : SquareType.NUMBER).ordinal();
+				tileCounts[cell] = (byte) count;
+			}
+		}
+		types[tile] = tileTypes;
+		counts[tile] = tileCounts;
+	}
+
+	/**
+	 * Method to draw the number of bombs falling in some cells, when a number of
+	 * bombs is uniformly distributed among a larger number of cells. The draw is
+	 * an inversion of the hypergeometric distribution starting from its mode, so
+	 * it takes a number of steps proportional to its standard deviation.
+	 *
+	 * @param random The random source to use.
+	 * @param cells  The number of cells where the bombs are distributed.
+	 * @param bombs  The number of bombs.
+	 * @param drawn  The number of cells considered.
+	 * @return The number of bombs in the cells considered.
+	 */
+	private static int drawHypergeometric(SplittableRandom random, long cells, int bombs, int drawn) {
+		int min = (int) Math.max(0, drawn - (cells - bombs));
+		int max = Math.min(drawn, bombs);
+		if (min == max) {
+			return min;
+		}
+		int mode = (int) Math.min(max, Math.max(min, (drawn + 1.0) * (bombs + 1.0) / (cells + 2.0)));
+		double modeProbability = getHypergeometricProbability(mode, cells, bombs, drawn);
+		double u = random.nextDouble() - modeProbability;
+		// visit the values alternately below and above the mode, following the ratios
+		// between the probabilities of consecutive values
+		int low = mode;
+		int high = mode;
+		double lowProbability = modeProbability;
+		double highProbability = modeProbability;
+		while (u >= 0 && (low > min || high < max)) {
+			if (low > min) {
+				lowProbability *= low * (double) (cells - bombs - drawn + low) / ((bombs - low + 1.0) * (drawn - low + 1.0));
+				low--;
+				if ((u -= lowProbability) < 0) {
+					return low;
+				}
+			}
+			if (high < max) {
+				highProbability *= (bombs - high) * (double) (drawn - high) / ((high + 1.0) * (cells - bombs - drawn + high + 1.0));
+				high++;
+				if ((u -= highProbability) < 0) {
+					return high;
+				}
+			}
+		}
+		// only reached through rounding errors
+		return mode;
+	}
+
+	/**
+	 * Method to compute the probability that some cells contain a number of
+	 * bombs, when a number of bombs is uniformly distributed among a larger
+	 * number of cells, as a product of binomial probabilities to avoid the
+	 * cancellation of large factorials (Loader's method).
+	 *
+	 * @param found The number of bombs in the cells considered.
+	 * @param cells The number of cells where the bombs are distributed.
+	 * @param bombs The number of bombs.
+	 * @param drawn The number of cells considered.
+	 * @return The probability of the number of bombs.
+	 */
+	private static double getHypergeometricProbability(int found, long cells, int bombs, int drawn) {
+		double p = (double) drawn / cells;
+		double q = (double) (cells - drawn) / cells;
+		return getBinomialProbability(found, bombs, p, q) * getBinomialProbability(drawn - found, cells - bombs, p, q)
+				/ getBinomialProbability(drawn, cells, p, q);
+	}
+
+	/**
+	 * Method to compute the probability of a number of successes in a number of
+	 * trials, given the probability of success and its complement.
+	 *
+	 * @param x The number of successes.
+	 * @param n The number of trials.
+	 * @param p The probability of success.
+	 * @param q The probability of failure.
+	 * @return The probability of the number of successes.
+	 */
+	private static double getBinomialProbability(long x, long n, double p, double q) {
+		if (p == 0) {
+			return x == 0 ? 1 : 0;
+		}
+		if (q == 0) {
+			return x == n ? 1 : 0;
+		}
+		if (x == 0) {
+			return Math.exp(p < 0.1 ? -getDeviance(n, n * q) - n * p : n * Math.log(q));
+		}
+		if (x == n) {
+			return Math.exp(q < 0.1 ? -getDeviance(n, n * p) - n * q : n * Math.log(p));
+		}
+		double logarithm = getStirlingError(n) - getStirlingError(x) - getStirlingError(n - x) - getDeviance(x, n * p)
+				- getDeviance(n - x, n * q);
+		return Math.exp(logarithm - LN_SQRT_2PI - 0.5 * (Math.log(x) + Math.log1p(-(double) x / n)));
+	}
+
+	/**
+	 * Method to compute the difference between the logarithm of n! and its
+	 * Stirling approximation.
+	 *
+	 * @param n The considered number, at least 1.
+	 * @return The error of the Stirling approximation.
+	 */
+	private static double getStirlingError(long n) {
+		if (n <= 15) {
+			double logarithm = 0;
+			for (int i = 2; i <= n; i++) {
+				logarithm += Math.log(i);
+			}
+			return logarithm - (n + 0.5) * Math.log(n) + n - LN_SQRT_2PI;
+		}
+		double n2 = (double) n * n;
+		if (n > 500) {
+			return (1.0 / 12 - 1.0 / 360 / n2) / n;
+		}
+		if (n > 80) {
+			return (1.0 / 12 - (1.0 / 360 - 1.0 / 1260 / n2) / n2) / n;
+		}
+		if (n > 35) {
+			return (1.0 / 12 - (1.0 / 360 - (1.0 / 1260 - 1.0 / 1680 / n2) / n2) / n2) / n;
+		}
+		return (1.0 / 12 - (1.0 / 360 - (1.0 / 1260 - (1.0 / 1680 - 1.0 / 1188 / n2) / n2) / n2) / n2) / n;
+	}
+
+	/**
+	 * Method to compute x * log(x / mean) + mean - x without cancellation when x
+	 * is close to the mean.
+	 *
+	 * @param x    The considered value.
+	 * @param mean The mean.
+	 * @return The deviance of the value.
+	 */
+	private static double getDeviance(long x, double mean) {
+		if (Math.abs(x - mean) < 0.1 * (x + mean)) {
+			double v = (x - mean) / (x + mean);
+			double sum = (x - mean) * v;
+			double term = 2 * x * v;
+			v *= v;
+			for (int j = 1;; j++) {
+				term *= v;
+				double next = sum + term / (2 * j + 1);
+				if (next == sum) {
+					return next;
+				}
+				sum = next;
+			}
+		}
+		return x * Math.log(x / mean) + mean - x;
+	}
+
+	/**
+	 * Method to scramble the bits of a value, used to derive independent seeds.
+	 *
+	 * @param value The value to scramble.
+	 * @return The scrambled value.
+	 */
+	private static long mix(long value) {
+		value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+		value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return value ^ (value >>> 33);
+	}
+}
@@ -16,4 +16,10 @@ public class Configuration {
 	private final int N_COLUMNS;
 	/** Number of bombs to place in the grid. **/
 	private final int N_BOMBS;
+	/** Seed used to generate the grids, null to use a different seed for each grid. **/
+	private final Long seed;
+
+	public Configuration(int N_ROWS, int N_COLUMNS, int N_BOMBS) {
+		this(N_ROWS, N_COLUMNS, N_BOMBS, null);
+	}
 }
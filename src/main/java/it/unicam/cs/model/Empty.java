@@ -8,8 +8,8 @@ import it.unicam.cs.enumeration.SquareType;
  */
 public class Empty extends Square {
 
-	public Empty(Location location) {
-		super(SquareType.EMPTY, location);
+	public Empty(Grid grid, int index, Location location) {
+		super(SquareType.EMPTY, grid, index, location);
 	}
 	
 	@Override
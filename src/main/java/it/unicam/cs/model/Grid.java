@@ -1,31 +1,108 @@
 package it.unicam.cs.model;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
-import java.util.Random;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import it.unicam.cs.engine.DroolsGameEngine;
+import it.unicam.cs.engine.GameEngine;
 import it.unicam.cs.enumeration.GameState;
+import it.unicam.cs.enumeration.SafeArea;
 import it.unicam.cs.enumeration.SquareState;
 import it.unicam.cs.enumeration.SquareType;
-import it.unicam.cs.utils.DroolsUtils;
 import lombok.Getter;
+import lombok.Setter;
 
 /**
  * Class to represent the grid of the game containing the Squares.
  *
  */
 public class Grid {
-	private final Random RANDOM = new Random();
-	/** Matrix containing the squares **/
-	private Square[][] grid;
+	/** Number of Squares above which the grid is split into lazily materialized tiles **/
+	public static final int CHUNKED_GRID_THRESHOLD = 1 << 18;
+	/** Number of Square views in a block of the views cache, expressed as power of two **/
+	private static final int SQUARES_BLOCK_BITS = 10;
+
+	/** Seed from which all the random choices of this grid are derived **/
+	@Getter
+	private final long seed;
+	/** Random source used to generate the boards **/
+	private final SplittableRandom random;
+	/** Seed of the current board, drawn from the random source at every population **/
+	@Getter
+	private long boardSeed;
+	/** Random source reserved to the Solvers playing on this grid **/
+	@Getter
+	private final SplittableRandom solverRandom;
+	/** Packed content of the grid (type, bombs count and state of each square) **/
+	@Getter
+	private Board board;
+	/** Layers of bits kept in sync with the board (null for chunked grids) **/
+	@Getter
+	private Bitboard bitboard;
+	/** Square views of the board, created only when requested and grouped in blocks **/
+	private Square[][] squares;
+	/** Precomputed neighbors of every cell of the grid (null for chunked grids) **/
+	private final Adjacency adjacency;
+	/** Canonical locations of the cells of the grid **/
+	private final LocationCache locations;
 	/** The configuration of the grid **/
 	@Getter
 	private Configuration config;
+	/** Engine applying the moves of the game played on this grid **/
+	@Getter
+	private final GameEngine engine;
+	/** Location of the first clicked Square, kept free of bombs **/
+	@Getter
+	private Location firstLocation;
+	/** Area around the first clicked Square kept free of bombs **/
+	@Getter
+	private SafeArea safeArea;
+	/** Whether the Drools engine uncovers the Squares by a flood fill instead of the UNCOVER rules **/
+	@Getter
+	@Setter
+	private boolean floodFill;
 
 	public Grid(Configuration config) {
+		this(config, config.getSeed() != null ? config.getSeed() : ThreadLocalRandom.current().nextLong());
+	}
+
+	/**
+	 * Constructor to create a grid whose board and solver choices only depend on
+	 * the given seed. Games running in parallel can derive their seeds from a
+	 * SplittableRandom split for each thread.
+	 * 
+	 * @param config The configuration of the grid.
+	 * @param seed   The seed of the grid.
+	 */
+	public Grid(Configuration config, long seed) {
+		this(config, seed, new DroolsGameEngine());
+	}
+
+	/**
+	 * Constructor to create a grid played with the given engine. Each game must
+	 * own its engine, so that games can be played on different threads.
+	 * 
+	 * @param config The configuration of the grid.
+	 * @param seed   The seed of the grid.
+	 * @param engine The engine of the game.
+	 */
+	public Grid(Configuration config, long seed, GameEngine engine) {
 		this.config = config;
+		this.engine = engine;
+		this.seed = seed;
+		SplittableRandom root = new SplittableRandom(seed);
+		this.random = root.split();
+		this.solverRandom = root.split();
+		this.adjacency = isChunked() ? null : Adjacency.of(config.getN_ROWS(), config.getN_COLUMNS());
+		this.locations = LocationCache.of(config.getN_ROWS(), config.getN_COLUMNS());
 	}
 
 	/**
@@ -34,7 +111,7 @@ public class Grid {
 	 * @return The Stream of squares contained in the grid.
 	 */
 	public Stream<Square> getGridAsStream() {
-		return Arrays.stream(grid).flatMap(Arrays::stream);
+		return IntStream.range(0, board.getSize()).mapToObj(this::getSquareAt);
 	}
 
 	/**
@@ -44,16 +121,36 @@ public class Grid {
 	 * @return The Stream containing all the neighbors of the considered Square.
 	 */
 	public Stream<Square> getNeighboursAsStream(Location location) {
-		List<Square> neighbours = new ArrayList<Square>();
+		int[] neighbours = new int[8];
+		int count = getNeighbours(getIndex(location), neighbours);
+		return Arrays.stream(neighbours, 0, count).mapToObj(this::getSquareAt);
+	}
+
+	/**
+	 * Method to copy the indexes of the neighbors of a Square into the given
+	 * array, without allocating anything.
+	 * 
+	 * @param index      The index of the considered Square.
+	 * @param neighbours The array (of at least 8 elements) to fill.
+	 * @return The number of neighbors copied into the array.
+	 */
+	public int getNeighbours(int index, int[] neighbours) {
+		if (adjacency != null) {
+			return adjacency.getNeighbours(index, neighbours);
+		}
+		int row = index / config.getN_COLUMNS();
+		int column = index % config.getN_COLUMNS();
+		int count = 0;
 		for (int r = -1; r <= 1; r++) {
 			for (int c = -1; c <= 1; c++) {
-				Location newLocation = new Location(location.getRow() + r, location.getColumn() + c);
-				if (!(r == 0 && c == 0) && isLocationInsideGrid(newLocation)) {
-					neighbours.add(getSquareAt(newLocation));
+				int newRow = row + r;
+				int newColumn = column + c;
+				if (!(r == 0 && c == 0) && newRow >= 0 && newRow < config.getN_ROWS() && newColumn >= 0 && newColumn < config.getN_COLUMNS()) {
+					neighbours[count++] = newRow * config.getN_COLUMNS() + newColumn;
 				}
 			}
 		}
-		return neighbours.stream();
+		return count;
 	}
 
 	/**
@@ -63,17 +160,152 @@ public class Grid {
 	 * @return The Square at the considered location.
 	 */
 	public Square getSquareAt(Location location) {
-		return grid[location.getRow()][location.getColumn()];
+		return getSquareAt(getIndex(location));
 	}
 
 	/**
-	 * Method to place a given Square in a certain location.
+	 * Method to obtain the Square having a certain index. The Square view is
+	 * created the first time it is requested and reused afterwards.
 	 * 
-	 * @param square   The Square to place.
-	 * @param location The location where to place the Square.
+	 * @param index The index of the considered Square.
+	 * @return The Square at the considered index.
 	 */
-	private void setSquareAt(Square square, Location location) {
-		this.grid[location.getRow()][location.getColumn()] = square;
+	public Square getSquareAt(int index) {
+		if (squares == null) {
+			squares = new Square[((board.getSize() - 1) >>> SQUARES_BLOCK_BITS) + 1][];
+		}
+		Square[] block = squares[index >>> SQUARES_BLOCK_BITS];
+		if (block == null) {
+			block = new Square[1 << SQUARES_BLOCK_BITS];
+			squares[index >>> SQUARES_BLOCK_BITS] = block;
+		}
+		Square square = block[index & ((1 << SQUARES_BLOCK_BITS) - 1)];
+		if (square == null) {
+			Location location = getLocation(index);
+			switch (board.getType(index)) {
+			case BOMB:
+				square = new Bomb(this, index, location);
+				break;
+			case NUMBER:
+				square = new Number(this, index, location);
+				break;
+			default:
+				square = new Empty(this, index, location);
+				break;
+			}
+			block[index & ((1 << SQUARES_BLOCK_BITS) - 1)] = square;
+		}
+		return square;
+	}
+
+	/**
+	 * Method to obtain the canonical location corresponding to a certain index.
+	 * 
+	 * @param index The considered index.
+	 * @return The location corresponding to the index.
+	 */
+	public Location getLocation(int index) {
+		return locations.get(index);
+	}
+
+	/**
+	 * Method to obtain the canonical location having a certain row and column.
+	 * 
+	 * @param row    The row of the location.
+	 * @param column The column of the location.
+	 * @return The location having the given row and column.
+	 */
+	public Location getLocation(int row, int column) {
+		return locations.get(row * config.getN_COLUMNS() + column);
+	}
+
+	/**
+	 * Method to obtain the index of a certain location inside the grid.
+	 * 
+	 * @param location The considered location.
+	 * @return The index corresponding to the location.
+	 */
+	public int getIndex(Location location) {
+		return location.getRow() * config.getN_COLUMNS() + location.getColumn();
+	}
+
+	/**
+	 * Method to obtain the indexes of the Squares whose state may differ from
+	 * covered: all the Squares for a normal grid, only the materialized tiles for
+	 * a chunked grid.
+	 * 
+	 * @return The Stream of indexes.
+	 */
+	public IntStream getTouchedIndexes() {
+		return board.getTouchedIndexes();
+	}
+
+	/**
+	 * Method to obtain the type of the Square having a certain index.
+	 * 
+	 * @param index The index of the considered Square.
+	 * @return The type of the Square.
+	 */
+	public SquareType getType(int index) {
+		return board.getType(index);
+	}
+
+	/**
+	 * Method to obtain the state of the Square having a certain index.
+	 * 
+	 * @param index The index of the considered Square.
+	 * @return The state of the Square.
+	 */
+	public SquareState getState(int index) {
+		return board.getState(index);
+	}
+
+	/**
+	 * Method to change the state of the Square having a certain index. The
+	 * engines change the states through the Squares.
+	 * 
+	 * @param index The index of the considered Square.
+	 * @param state The new state of the Square.
+	 */
+	void setState(int index, SquareState state) {
+		board.setState(index, state);
+		if (bitboard != null) {
+			bitboard.setState(index, state);
+		}
+	}
+
+	/**
+	 * Method to obtain the number of bombs in the neighbors of the Square having a
+	 * certain index.
+	 * 
+	 * @param index The index of the considered Square.
+	 * @return The number of bombs in the neighbors of the Square.
+	 */
+	public int getNeighbourBombsCount(int index) {
+		return board.getNeighbourBombsCount(index);
+	}
+
+	/**
+	 * Method to obtain the number of flagged neighbors of the Square having a
+	 * certain index. The count is kept up to date on every state transition.
+	 * 
+	 * @param index The index of the considered Square.
+	 * @return The number of flagged neighbors of the Square.
+	 */
+	public int getFlaggedNeighboursCount(int index) {
+		return board.getFlaggedNeighboursCount(index);
+	}
+
+	/**
+	 * Method to obtain the number of covered (and not flagged) neighbors of the
+	 * Square having a certain index. The count is kept up to date on every state
+	 * transition.
+	 * 
+	 * @param index The index of the considered Square.
+	 * @return The number of covered neighbors of the Square.
+	 */
+	public int getCoveredNeighboursCount(int index) {
+		return board.getCoveredNeighboursCount(index);
 	}
 
 	/**
@@ -82,7 +314,7 @@ public class Grid {
 	 * @return The random Location.
 	 */
 	public Location getRandomPoint() {
-		return new Location(RANDOM.nextInt(config.getN_ROWS()), RANDOM.nextInt(config.getN_COLUMNS()));
+		return getLocation(random.nextInt(config.getN_ROWS()), random.nextInt(config.getN_COLUMNS()));
 	}
 
 	/**
@@ -97,62 +329,252 @@ public class Grid {
 	}
 
 	/**
-	 * Method to get the number of bombs in the neighbors of a Square placed in a
-	 * certain Location.
+	 * Method to populate the grid according to the Configuration, avoiding the
+	 * presence of a bomb in the first clicked Square
 	 * 
-	 * @param location The location of the Square.
-	 * @return The number of bombs in the neighbors of a Square placed in the
-	 *         considered Location.
+	 * @param location The location represent the first clicked Square.
 	 */
-	private int getNeighbourBombsCount(Location location) {
-		return (int) getNeighboursAsStream(location).filter(s -> s != null && s.getType() == SquareType.BOMB).count();
+	public void populateSafeGrid(Location location) {
+		populateSafeGrid(location, SafeArea.SQUARE);
 	}
-	
+
 	/**
 	 * Method to populate the grid according to the Configuration, avoiding the
-	 * presence of a bomb in the first clicked Square
+	 * presence of bombs in an area around the first clicked Square. If the grid
+	 * has too many bombs to keep the whole neighborhood free, only the clicked
+	 * Square is kept free.
 	 * 
 	 * @param location The location represent the first clicked Square.
+	 * @param safeArea The area to keep free of bombs.
 	 */
-	public void populateSafeGrid(Location location) {
-		do {
-			populate();
-		} while (getSquareAt(location).getType() == SquareType.BOMB);
-		getGridAsStream().forEach(s -> DroolsUtils.getInstance().getKSession().insert(s));
-		DroolsUtils.getInstance().getKSession().getAgenda().getAgendaGroup("register neighbor").setFocus();
-		DroolsUtils.getInstance().getKSession().fireAllRules();
+	public void populateSafeGrid(Location location, SafeArea safeArea) {
+		populateSafeGrid(location, safeArea, random.nextLong());
 	}
 
 	/**
-	 * Method to populate the grid according to the Configuration.
+	 * Method to populate the grid with the board generated from a given seed,
+	 * used to replay a recorded game.
+	 * 
+	 * @param location  The location represent the first clicked Square.
+	 * @param safeArea  The area to keep free of bombs.
+	 * @param boardSeed The seed of the board.
 	 */
-	private void populate() {
-		this.grid = new Square[config.getN_ROWS()][config.getN_COLUMNS()];
-		// insert bombs
-		for (int i = 0; i < config.getN_BOMBS(); i++) {
-			Location newPoint;
-			do {
-				newPoint = getRandomPoint();
-			} while (getSquareAt(newPoint) != null);
-			Bomb bomb = new Bomb(newPoint);
-			setSquareAt(bomb, newPoint);
-		}
-		// insert empty and number
+	public void populateSafeGrid(Location location, SafeArea safeArea, long boardSeed) {
+		int safeIndex = getIndex(location);
+		int neighboursCount = getNeighbours(safeIndex, new int[8]);
+		if (safeArea == SafeArea.NEIGHBORHOOD
+				&& config.getN_ROWS() * config.getN_COLUMNS() - 1 - neighboursCount < config.getN_BOMBS()) {
+			safeArea = SafeArea.SQUARE;
+		}
+		this.firstLocation = location;
+		this.safeArea = safeArea;
+		this.boardSeed = boardSeed;
+		this.squares = null;
+		this.bitboard = null;
+		if (isChunked()) {
+			// the tiles are materialized only when reached
+			this.board = new ChunkedBoard(config.getN_ROWS(), config.getN_COLUMNS(), config.getN_BOMBS(),
+					boardSeed, location.getRow(), location.getColumn(), safeArea == SafeArea.NEIGHBORHOOD ? 1 : 0);
+		} else {
+			populate(location, safeArea);
+		}
+		engine.start(this);
+	}
+
+	/**
+	 * Method to make a move on a Location, through the engine of the grid.
+	 * 
+	 * @param agendaGroup The agendGroup of the move (UNCOVER, FLAG or CHORD).
+	 * @param location    The location of the move.
+	 */
+	public void insertAndFire(String agendaGroup, Location location) {
+		engine.play(agendaGroup, Collections.singletonList(location));
+	}
+
+	/**
+	 * Method to make the same move on many Locations at once, through the engine
+	 * of the grid.
+	 * 
+	 * @param agendaGroup The agendGroup of the move (UNCOVER, FLAG or CHORD).
+	 * @param locations   The locations of the move.
+	 * @return The Squares changed by the move.
+	 */
+	public Set<Square> insertAllAndFire(String agendaGroup, Collection<Location> locations) {
+		return engine.play(agendaGroup, locations);
+	}
+
+	/**
+	 * Method to reveal the grid at the end of the game in a single pass over the
+	 * board: the covered Squares are flagged in case of victory, the covered bombs
+	 * are uncovered in case of defeat. The engine is not involved, since no move
+	 * follows the end of the game. For chunked grids, only the tiles already
+	 * materialized are revealed.
+	 * 
+	 * @return The number of Squares changed.
+	 */
+	public int reveal() {
+		GameState gameState = getGameState();
+		if (gameState == GameState.ONGOING) {
+			return 0;
+		}
+		boolean win = gameState == GameState.WIN;
+		int[] indexes = getTouchedIndexes()
+				.filter(i -> board.getState(i) == SquareState.COVERED && (win || board.getType(i) == SquareType.BOMB))
+				.toArray();
+		SquareState state = win ? SquareState.FLAGGED : SquareState.UNCOVERED;
+		for (int index : indexes) {
+			setState(index, state);
+		}
+		return indexes.length;
+	}
+
+	/**
+	 * Method to uncover some locations as the UNCOVER rules would, directly on
+	 * the board: the empty regions are visited with a breadth-first search
+	 * instead of inserting a Location fact for every reached Square.
+	 * <p>
+	 * As with the rules, flagged Squares are left untouched, numbers and empty
+	 * Squares are uncovered before any bomb, and only the first covered bomb among
+	 * the locations explodes.
+	 * 
+	 * @param locations The locations to uncover.
+	 * @return The Squares uncovered, in the order they were reached.
+	 */
+	public Set<Square> uncover(Collection<Location> locations) {
+		BitSet visited = new BitSet();
+		int[] queue = new int[Math.max(16, locations.size())];
+		int tail = 0;
+		int explodedIndex = -1;
+		int[] neighbours = new int[8];
+		for (Location location : locations) {
+			int index = getIndex(location);
+			SquareState state = getState(index);
+			if (state == SquareState.UNCOVERED && getType(index) == SquareType.EMPTY) {
+				// an uncovered empty Square uncovers again its covered neighbors
+				int count = getNeighbours(index, neighbours);
+				for (int k = 0; k < count; k++) {
+					if (!visited.get(neighbours[k]) && getState(neighbours[k]) == SquareState.COVERED) {
+						visited.set(neighbours[k]);
+						queue = enqueue(queue, tail++, neighbours[k]);
+					}
+				}
+			} else if (state == SquareState.COVERED && !visited.get(index)) {
+				if (getType(index) != SquareType.BOMB) {
+					visited.set(index);
+					queue = enqueue(queue, tail++, index);
+				} else if (explodedIndex < 0) {
+					explodedIndex = index;
+				}
+			}
+		}
+		for (int head = 0; head < tail; head++) {
+			int index = queue[head];
+			if (getType(index) != SquareType.EMPTY) {
+				continue;
+			}
+			// the neighbors of an empty Square are never bombs
+			int count = getNeighbours(index, neighbours);
+			for (int k = 0; k < count; k++) {
+				if (!visited.get(neighbours[k]) && getState(neighbours[k]) == SquareState.COVERED) {
+					visited.set(neighbours[k]);
+					queue = enqueue(queue, tail++, neighbours[k]);
+				}
+			}
+		}
+		Set<Square> changedSquares = new LinkedHashSet<Square>();
+		for (int i = 0; i < tail; i++) {
+			changedSquares.add(getSquareAt(queue[i]));
+		}
+		if (explodedIndex >= 0) {
+			changedSquares.add(getSquareAt(explodedIndex));
+		}
+		for (Square square : changedSquares) {
+			setState(square.getIndex(), square.getIndex() == explodedIndex ? SquareState.EXPLODED : SquareState.UNCOVERED);
+		}
+		return changedSquares;
+	}
+
+	/**
+	 * Method to append an index to the queue of a flood fill, growing it if full.
+	 * 
+	 * @param queue The queue.
+	 * @param tail  The position where to append the index.
+	 * @param index The index to append.
+	 * @return The queue, or a bigger copy of it.
+	 */
+	private static int[] enqueue(int[] queue, int tail, int index) {
+		if (tail == queue.length) {
+			queue = Arrays.copyOf(queue, queue.length << 1);
+		}
+		queue[tail] = index;
+		return queue;
+	}
+
+	/**
+	 * Method to release the engine of the grid, once its game is over and
+	 * no longer shown.
+	 */
+	public void dispose() {
+		engine.dispose();
+	}
+
+	/**
+	 * Method to check if the grid is split into lazily materialized tiles.
+	 * 
+	 * @return True if the grid is chunked, false otherwise.
+	 */
+	public boolean isChunked() {
+		return (long) config.getN_ROWS() * config.getN_COLUMNS() > CHUNKED_GRID_THRESHOLD;
+	}
+
+	/**
+	 * Method to populate the grid according to the Configuration, in time linear
+	 * in the number of Squares. The bombs are placed using a partial Fisher-Yates
+	 * shuffle of the Squares outside the safe area, then each bomb increments the
+	 * count of its neighbors.
+	 * 
+	 * @param location The location represent the first clicked Square.
+	 * @param safeArea The area around the location to keep free of bombs.
+	 */
+	private void populate(Location location, SafeArea safeArea) {
+		SplittableRandom random = new SplittableRandom(boardSeed);
+		PackedBoard board = new PackedBoard(config.getN_ROWS(), config.getN_COLUMNS());
+		int distance = safeArea == SafeArea.NEIGHBORHOOD ? 1 : 0;
+		// collect the Squares that can contain a bomb
+		int[] candidates = new int[board.getSize()];
+		int candidatesCount = 0;
 		for (int r = 0; r < config.getN_ROWS(); r++) {
 			for (int c = 0; c < config.getN_COLUMNS(); c++) {
-				Location location = new Location(r, c);
-				if (getSquareAt(location) == null) {
-					int numOfBombs = getNeighbourBombsCount(new Location(r, c));
-					if (numOfBombs == 0) {
-						Empty empty = new Empty(location);
-						setSquareAt(empty, location);
-					} else {
-						Number number = new Number(location, numOfBombs);
-						setSquareAt(number, location);
-					}
+				if (Math.abs(r - location.getRow()) > distance || Math.abs(c - location.getColumn()) > distance) {
+					candidates[candidatesCount++] = board.getIndex(r, c);
 				}
 			}
 		}
+		// insert bombs, each one chosen among the remaining candidates
+		int[] offsets = adjacency.getOffsets();
+		int[] neighbours = adjacency.getNeighbours();
+		for (int i = 0; i < config.getN_BOMBS(); i++) {
+			int j = i + random.nextInt(candidatesCount - i);
+			int bomb = candidates[j];
+			candidates[j] = candidates[i];
+			candidates[i] = bomb;
+			board.setType(bomb, SquareType.BOMB);
+			for (int k = offsets[bomb]; k < offsets[bomb + 1]; k++) {
+				board.setNeighbourBombsCount(neighbours[k], board.getNeighbourBombsCount(neighbours[k]) + 1);
+			}
+		}
+		// insert number (the other Squares are empty)
+		Bitboard bitboard = new Bitboard(config.getN_ROWS(), config.getN_COLUMNS());
+		for (int index = 0; index < board.getSize(); index++) {
+			if (board.getType(index) == SquareType.BOMB) {
+				bitboard.setMine(index);
+			} else if (board.getNeighbourBombsCount(index) > 0) {
+				board.setType(index, SquareType.NUMBER);
+			}
+			bitboard.setNeighbourBombsCount(index, board.getNeighbourBombsCount(index));
+		}
+		this.board = board;
+		this.bitboard = bitboard;
 	}
 
 	/**
@@ -161,11 +583,11 @@ public class Grid {
 	 * @return True if the Grid is populated, false otherwise.
 	 */
 	public boolean isPopulated() {
-		return this.grid == null ? false : true;
+		return this.board == null ? false : true;
 	}
 	
 	/**
-	 * Method to check the State of the Game.
+	 * Method to check the State of the Game, in constant time.
 	 * 
 	 * @return The state of the Game (Ongoing, Loss or Win).
 	 */
@@ -173,21 +595,48 @@ public class Grid {
 		if (!isPopulated()) {
 			return GameState.ONGOING;
 		}
-		if (this.getGridAsStream().filter(s -> s.getState() == SquareState.EXPLODED).findAny().isPresent()) {
+		if (board.getStateCount(SquareState.EXPLODED) > 0) {
 			return GameState.LOSS;
 		}
-		if (this.config.getN_BOMBS() == getGridAsStream().filter(s -> s.getState() == SquareState.COVERED || s.getState() == SquareState.FLAGGED).count()) {
+		if (this.config.getN_BOMBS() == board.getStateCount(SquareState.COVERED) + board.getStateCount(SquareState.FLAGGED)) {
 			return GameState.WIN;
 		}
 		return GameState.ONGOING;
 	}
 
+	/**
+	 * Method to obtain the number of uncovered Squares.
+	 * 
+	 * @return The number of uncovered Squares.
+	 */
+	public int getUncoveredCount() {
+		return isPopulated() ? board.getStateCount(SquareState.UNCOVERED) : 0;
+	}
+
+	/**
+	 * Method to obtain the number of flagged Squares.
+	 * 
+	 * @return The number of flagged Squares.
+	 */
+	public int getFlaggedCount() {
+		return isPopulated() ? board.getStateCount(SquareState.FLAGGED) : 0;
+	}
+
+	/**
+	 * Method to obtain the number of covered (and not flagged) Squares.
+	 * 
+	 * @return The number of covered Squares.
+	 */
+	public int getCoveredCount() {
+		return isPopulated() ? board.getStateCount(SquareState.COVERED) : config.getN_ROWS() * config.getN_COLUMNS();
+	}
+
 	@Override
 	public String toString() {
 		String s = "";
 		for (int r = 0; r < config.getN_ROWS(); r++) {
 			for (int c = 0; c < config.getN_COLUMNS(); c++) {
-				s += grid == null ? "[           ]" : getSquareAt(new Location(r, c));
+				s += board == null ? "[           ]" : getSquareAt(getLocation(r, c));
 			}
 			s += "\r\n";
 		}
@@ -0,0 +1,77 @@
+package it.unicam.cs.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Class used to obtain the canonical Location instances of a grid, so that
+ * the same coordinates are always represented by the same object. Locations
+ * are created in blocks, the first time one of them is requested, and shared
+ * by all the grids having the same number of rows and columns.
+ *
+ */
+public class LocationCache {
+	/** Caches already created, by size of the grid **/
+	private static final Map<Long, LocationCache> CACHE = new ConcurrentHashMap<Long, LocationCache>();
+	/** Number of Locations in a block, expressed as power of two **/
+	private static final int BLOCK_BITS = 10;
+	private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+
+	/** Number of columns of the grid **/
+	private final int nColumns;
+	/** Number of cells of the grid **/
+	private final int size;
+	/** Blocks of Locations, fully initialized before being published **/
+	private final AtomicReferenceArray<Location[]> blocks;
+
+	private LocationCache(int nRows, int nColumns) {
+		this.nColumns = nColumns;
+		this.size = nRows * nColumns;
+		this.blocks = new AtomicReferenceArray<Location[]>((size + BLOCK_SIZE - 1) >>> BLOCK_BITS);
+	}
+
+	/**
+	 * Method to obtain the cache of a grid having a certain size.
+	 *
+	 * @param nRows    The number of rows of the grid.
+	 * @param nColumns The number of columns of the grid.
+	 * @return The cache of Locations.
+	 */
+	public static LocationCache of(int nRows, int nColumns) {
+		return CACHE.computeIfAbsent(((long) nRows << 32) | nColumns, k -> new LocationCache(nRows, nColumns));
+	}
+
+	/**
+	 * Method to obtain the canonical Location having a certain index.
+	 *
+	 * @param index The index (row * N_COLUMNS + column) of the Location.
+	 * @return The canonical Location.
+	 */
+	public Location get(int index) {
+		int blockIndex = index >>> BLOCK_BITS;
+		Location[] block = blocks.get(blockIndex);
+		if (block == null) {
+			block = createBlock(blockIndex);
+			if (!blocks.compareAndSet(blockIndex, null, block)) {
+				block = blocks.get(blockIndex);
+			}
+		}
+		return block[index & (BLOCK_SIZE - 1)];
+	}
+
+	/**
+	 * Method to create all the Locations of a block.
+	 *
+	 * @param blockIndex The index of the block.
+	 * @return The Locations of the block.
+	 */
+	private Location[] createBlock(int blockIndex) {
+		int first = blockIndex << BLOCK_BITS;
+		Location[] block = new Location[Math.min(BLOCK_SIZE, size - first)];
+		for (int i = 0; i < block.length; i++) {
+			block[i] = new Location((first + i) / nColumns, (first + i) % nColumns);
+		}
+		return block;
+	}
+}
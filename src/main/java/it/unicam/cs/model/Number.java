@@ -1,7 +1,10 @@
 package it.unicam.cs.model;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import it.unicam.cs.enumeration.SquareState;
 import it.unicam.cs.enumeration.SquareType;
-import lombok.Getter;
 
 /**
  * Class to represent a Number Square in the Minesweeper game (at least one Bomb
@@ -10,17 +13,58 @@ import lombok.Getter;
  */
 public class Number extends Square {
 
-	/** Number of bombs in my neighbors **/
-	@Getter
-	private int neighbourBombsCount = 0;
+	public Number(Grid grid, int index, Location location) {
+		super(SquareType.NUMBER, grid, index, location);
+	}
+
+	/**
+	 * Method to obtain the number of bombs in the neighbors of this square.
+	 * 
+	 * @return The number of bombs in my neighbors.
+	 */
+	public int getNeighbourBombsCount() {
+		return grid.getNeighbourBombsCount(getIndex());
+	}
+
+	/**
+	 * Method to obtain the number of flagged neighbors of this square.
+	 * 
+	 * @return The number of flagged neighbors.
+	 */
+	public int getFlaggedNeighboursCount() {
+		return grid.getFlaggedNeighboursCount(getIndex());
+	}
+
+	/**
+	 * Method to obtain the number of covered (and not flagged) neighbors of this
+	 * square.
+	 * 
+	 * @return The number of covered neighbors.
+	 */
+	public int getCoveredNeighboursCount() {
+		return grid.getCoveredNeighboursCount(getIndex());
+	}
 
-	public Number(Location location, int neighbourBombsCount) {
-		super(SquareType.NUMBER, location);
-		this.neighbourBombsCount = neighbourBombsCount;
+	/**
+	 * Method to obtain the locations of the covered (and not flagged) neighbors
+	 * of this square.
+	 * 
+	 * @return The list of locations of the covered neighbors.
+	 */
+	public List<Location> getCoveredNeighbourLocations() {
+		int[] neighbours = new int[8];
+		int count = grid.getNeighbours(getIndex(), neighbours);
+		List<Location> locations = new ArrayList<Location>(getCoveredNeighboursCount());
+		for (int k = 0; k < count; k++) {
+			if (grid.getState(neighbours[k]) == SquareState.COVERED) {
+				locations.add(grid.getLocation(neighbours[k]));
+			}
+		}
+		return locations;
 	}
 
 	@Override
 	public String toString() {
-		return String.format("[%-9s %d]", this.getState(), neighbourBombsCount);
+		return String.format("[%-9s %d]", this.getState(), getNeighbourBombsCount());
 	}
 }
@@ -0,0 +1,74 @@
+package it.unicam.cs.model;
+
+import java.util.stream.IntStream;
+
+import it.unicam.cs.enumeration.SquareType;
+
+/**
+ * Class to represent the content of the grid in a packed form. The type, the
+ * number of neighbour bombs and the state of every Square are kept in primitive
+ * arrays indexed by <code>row * N_COLUMNS + column</code>, so that no object is
+ * needed to describe a Square.
+ *
+ */
+public class PackedBoard extends Board {
+	/** Ordinal of the SquareType of each cell **/
+	private final byte[] types;
+	/** Number of bombs in the neighbors of each cell **/
+	private final byte[] counts;
+	/** Ordinal of the SquareState of each cell **/
+	private final byte[] states;
+	/** Neighbor counters of each cell, one array per counter **/
+	private final byte[][] counters;
+
+	public PackedBoard(int nRows, int nColumns) {
+		super(nRows, nColumns);
+		this.types = new byte[nRows * nColumns];
+		this.counts = new byte[nRows * nColumns];
+		this.states = new byte[nRows * nColumns];
+		this.counters = new byte[2][nRows * nColumns];
+	}
+
+	@Override
+	public SquareType getType(int index) {
+		return TYPES[types[index]];
+	}
+
+	public void setType(int index, SquareType type) {
+		this.types[index] = (byte) type.ordinal();
+	}
+
+	@Override
+	public int getNeighbourBombsCount(int index) {
+		return counts[index];
+	}
+
+	public void setNeighbourBombsCount(int index, int count) {
+		this.counts[index] = (byte) count;
+	}
+
+	@Override
+	public IntStream getTouchedIndexes() {
+		return IntStream.range(0, getSize());
+	}
+
+	@Override
+	protected byte readState(int index) {
+		return states[index];
+	}
+
+	@Override
+	protected void writeState(int index, byte state) {
+		this.states[index] = state;
+	}
+
+	@Override
+	protected int readCounter(int index, int counter) {
+		return counters[counter][index];
+	}
+
+	@Override
+	protected void addToCounter(int index, int counter, int delta) {
+		this.counters[counter][index] += delta;
+	}
+}
@@ -2,29 +2,51 @@ package it.unicam.cs.model;
 
 import it.unicam.cs.enumeration.SquareState;
 import it.unicam.cs.enumeration.SquareType;
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
-import lombok.Setter;
 
 /**
- * Abstract class to represent a Square in the Minesweeper game.
+ * Abstract class to represent a Square in the Minesweeper game. A Square is a
+ * thin view over a cell of the Grid, whose state is stored in the Grid itself.
  *
  */
 @Getter
 @EqualsAndHashCode(of = {"location"})
 public abstract class Square {
 
-	/** The state of this square **/
-	@Setter
-	private SquareState state;
+	/** The grid containing this square **/
+	@Getter(AccessLevel.NONE)
+	protected final Grid grid;
+	/** The index of this square inside the grid **/
+	private final int index;
 	/** The type of this square **/
-	private SquareType type;
+	private final SquareType type;
 	/** The location of this square **/
-	private Location location;
+	private final Location location;
 
-	public Square(SquareType type, Location location) {
-		this.state = SquareState.COVERED;
+	public Square(SquareType type, Grid grid, int index, Location location) {
+		this.grid = grid;
+		this.index = index;
 		this.type = type;
 		this.location = location;
 	}
+
+	/**
+	 * Method to obtain the state of this square.
+	 * 
+	 * @return The state of this square.
+	 */
+	public SquareState getState() {
+		return grid.getState(index);
+	}
+
+	/**
+	 * Method to change the state of this square.
+	 * 
+	 * @param state The new state of this square.
+	 */
+	public void setState(SquareState state) {
+		grid.setState(index, state);
+	}
 }
@@ -1,25 +1,26 @@
 package it.unicam.cs.solver;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
-import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.chocosolver.solver.Model;
-import org.chocosolver.solver.Solution;
 import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.search.strategy.Search;
 import org.chocosolver.solver.variables.BoolVar;
 
 import it.unicam.cs.enumeration.SquareState;
 import it.unicam.cs.enumeration.SquareType;
 import it.unicam.cs.model.Grid;
 import it.unicam.cs.model.Location;
-import it.unicam.cs.model.Number;
+import it.unicam.cs.model.Square;
 
 /**
  * Class used to represent a Minesweeper Solver that uses the Constraint Satisfaction Problem Strategy.
@@ -29,47 +30,246 @@ public class CSPSolver implements MinesweeperSolver {
 
 	/**	Grid used by the Solver to solve the game**/
 	private Grid grid;
+	/** Limits of the work of the Solver in each step **/
+	private SolverBudget budget = SolverBudget.getDefaultBudget();
+	/** Pool solving the partitions in parallel, null to solve them on the calling thread **/
+	private ForkJoinPool pool = SolverManager.getDefaultPool();
+	
+	/** Frontier of the grid and its partitions, updated after every step **/
+	private final FrontierIndex frontier;
+	/** Random squares drawn looking for an interior square before counting them **/
+	private static final int INTERIOR_ATTEMPTS = 64;
 	
 	public CSPSolver(Grid grid) {
 		this.grid = grid;
+		this.frontier = new FrontierIndex(grid);
 	}
 
+	// support variables for the budget of the current step: the instant when the
+	// enumeration has to stop and the one when the sampling has to stop
+	private long enumerationDeadline;
+	private long samplingDeadline;
+	
+	@Override
+	public void setBudget(SolverBudget budget) {
+		this.budget = budget;
+	}
+	
+	@Override
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+	
+	@Override
+	public void update(Collection<Square> changedSquares) {
+		frontier.update(changedSquares);
+	}
+	
 	/**
-	 * Return the location from a BoolVar name
+	 * Check if a Square is an uncovered Number
 	 * 
-	 * @param locationString the name of a BoolVar
-	 * @return the location extracted from the string
+	 * @param index the index of the Square
+	 * @return true if the Square is an uncovered Number
 	 */
-	private static Location getLocationFromString(String locationString) {
-		int start = locationString.indexOf("(");
-		int middle = locationString.indexOf(",");
-		int end = locationString.indexOf(")");
-		Integer row = Integer.parseInt(locationString.substring(start+1, middle));
-		Integer column = Integer.parseInt(locationString.substring(middle+1, end));
-		return new Location(row, column);
+	private boolean isUncoveredNumber(int index) {
+		return grid.getState(index) == SquareState.UNCOVERED && grid.getType(index) == SquareType.NUMBER;
 	}
-
-	// support variable to calculate partitions
-	private Set<Location> frontierUncovered;
 	
-	private Set<Location> calculateSinglePartition(Location location) {
-		Set<Location> partition = new HashSet<Location>();
-		partition.addAll(grid.getNeighboursAsStream(location).filter(s -> s.getState() == SquareState.COVERED).map(n -> n.getLocation()).collect(Collectors.toList()));
-		frontierUncovered.remove(location);
-		grid.getNeighboursAsStream(location).filter(s -> frontierUncovered.contains(s.getLocation())).map(n -> n.getLocation()).forEach(n -> {
-			partition.addAll(calculateSinglePartition(n));
-		});
-		return partition;
+	/**
+	 * Find all the solutions of the partitions, in parallel if there is a pool
+	 * and more than one partition
+	 * 
+	 * @param partitions the indexes of the covered squares of each partition
+	 * @param seed the seed of the random searches sampling the solutions
+	 * @return the solutions of each partition, in the same order
+	 */
+	private List<PartitionSolutions> solvePartitions(List<int[]> partitions, long seed) {
+		// split the solutions of the budget before solving any partition, so that
+		// the limit of each one does not depend on the others or on their order
+		long[] solutionLimits = getSolutionLimits(partitions.size());
+		if (pool == null || pool.getParallelism() == 1 || partitions.size() == 1) {
+			return IntStream.range(0, partitions.size())
+					.mapToObj(p -> solvePartition(partitions.get(p), seed, solutionLimits[p])).collect(Collectors.toList());
+		}
+		// every partition has its own Model and results, which are merged by the
+		// calling thread once all of them are solved
+		List<ForkJoinTask<PartitionSolutions>> tasks = IntStream.range(0, partitions.size())
+				.mapToObj(p -> pool.submit(() -> solvePartition(partitions.get(p), seed, solutionLimits[p])))
+				.collect(Collectors.toList());
+		return tasks.stream().map(ForkJoinTask::join).collect(Collectors.toList());
 	}
 	
-	private List<Set<Location>> calculatePartitions() {
-		this.frontierUncovered = grid.getGridAsStream().filter(s -> s.getType() == SquareType.NUMBER && s.getState() == SquareState.UNCOVERED).filter(s -> grid.getNeighboursAsStream(s.getLocation()).anyMatch(n -> n.getState() == SquareState.COVERED)).map(n -> n.getLocation()).collect(Collectors.toSet());
-		List<Set<Location>> partitions = new ArrayList<Set<Location>>();
+	/**
+	 * Split the solutions of the budget evenly among the partitions of the step,
+	 * giving the remainder to the first (biggest) ones
+	 * 
+	 * @param partitions the number of partitions
+	 * @return the solutions each partition can enumerate, or -1 for no limit
+	 */
+	private long[] getSolutionLimits(int partitions) {
+		long[] solutionLimits = new long[partitions];
+		for (int p = 0; p < partitions; p++) {
+			solutionLimits[p] = budget.getSolutionLimit() == 0 ? -1
+					: budget.getSolutionLimit() / partitions + (p < budget.getSolutionLimit() % partitions ? 1 : 0);
+		}
+		return solutionLimits;
+	}
+	
+	/**
+	 * Find all the solutions of a partition, counted by number of mines. It only
+	 * reads the grid, so partitions can be solved on different threads
+	 * 
+	 * @param cells the sorted indexes of the covered squares of the partition
+	 * @param seed the seed of the random search sampling the solutions
+	 * @param solutionLimit the solutions the partition can enumerate, or -1 for no limit
+	 * @return the solutions of the partition
+	 */
+	private PartitionSolutions solvePartition(int[] cells, long seed, long solutionLimit) {
+		// create a BoolVar for each covered square in the partition, aligned
+		// with the index of the square
+		Model model = new Model("CSP_Model");
+		BoolVar[] vars = model.boolVarArray(cells.length);
+		
+		// find the uncovered Numbers around the partition: all their covered
+		// neighbors belong to the partition, as it is a connected component
+		int[] neighbours = new int[8];
+		int[] numbers = new int[cells.length * 8];
+		int numbersCount = 0;
+		for (int cell : cells) {
+			int count = grid.getNeighbours(cell, neighbours);
+			for (int k = 0; k < count; k++) {
+				if (isUncoveredNumber(neighbours[k])) {
+					numbers[numbersCount++] = neighbours[k];
+				}
+			}
+		}
+		Arrays.sort(numbers, 0, numbersCount);
+		
+		// create model constraints
+		BoolVar[] constraintVars = new BoolVar[8];
+		for (int i = 0; i < numbersCount; i++) {
+			int index = numbers[i];
+			if (i > 0 && numbers[i - 1] == index) {
+				continue;
+			}
+			int count = grid.getNeighbours(index, neighbours);
+			int varsCount = 0;
+			int flaggedNeighbors = 0;
+			for (int k = 0; k < count; k++) {
+				SquareState state = grid.getState(neighbours[k]);
+				if (state == SquareState.COVERED) {
+					constraintVars[varsCount++] = vars[Arrays.binarySearch(cells, neighbours[k])];
+				} else if (state == SquareState.FLAGGED) {
+					flaggedNeighbors++;
+				}
+			}
+			int sum = grid.getNeighbourBombsCount(index) - flaggedNeighbors;
+			model.sum(Arrays.copyOf(constraintVars, varsCount), "=", sum).post();
+		}
 		
-		while (!frontierUncovered.isEmpty()) {
-			partitions.add(calculateSinglePartition(frontierUncovered.stream().findFirst().get()));
+		// count every solution to the model, while the budget of the step allows it
+		PartitionSolutions solutions = new PartitionSolutions(cells);
+		Solver chocoSolver = model.getSolver();
+		if (limitSearch(chocoSolver, enumerationDeadline, solutionLimit)) {
+			while (chocoSolver.solve()) {
+				solutions.addSolution(vars);
+			}
+			if (!chocoSolver.isStopCriterionMet()) {
+				return solutions;
+			}
+		}
+		solutions.setApproximate();
+		
+		// the budget is over: the solutions enumerated so far are all alike, so
+		// replace them with solutions sampled by a random search restarting on
+		// every solution
+		chocoSolver.reset();
+		chocoSolver.removeAllStopCriteria();
+		if (budget.getSamples() == 0 || !limitSearch(chocoSolver, samplingDeadline, budget.getSamples())) {
+			return solutions;
+		}
+		chocoSolver.setSearch(Search.randomSearch(vars, seed + cells[0]));
+		chocoSolver.setRestartOnSolutions();
+		PartitionSolutions samples = new PartitionSolutions(cells);
+		samples.setApproximate();
+		while (chocoSolver.solve()) {
+			samples.addSolution(vars);
+		}
+		return samples.getSolutionsCount() > 0 ? samples : solutions;
+	}
+	
+	/**
+	 * Limit a search according to the budget of the step
+	 * 
+	 * @param chocoSolver the solver of the search
+	 * @param deadline the instant when the search has to stop, in nanoseconds,
+	 * or 0 for no limit
+	 * @param solutions the solutions the search can find, or -1 for no limit
+	 * @return false if the budget is already over
+	 */
+	private boolean limitSearch(Solver chocoSolver, long deadline, long solutions) {
+		long milliseconds = (deadline - System.nanoTime()) / 1000000;
+		if ((deadline != 0 && milliseconds <= 0) || solutions == 0) {
+			return false;
+		}
+		if (deadline != 0) {
+			chocoSolver.limitTime(milliseconds);
+		}
+		if (solutions > 0) {
+			chocoSolver.limitSolution(solutions);
+		}
+		return true;
+	}
+	
+	/**
+	 * Check if a Square is covered and not adjacent to any uncovered Number
+	 * 
+	 * @param index the index of the Square
+	 * @return true if the Square is in the interior
+	 */
+	private boolean isInterior(int index) {
+		return grid.getState(index) == SquareState.COVERED && !frontier.isFrontier(index);
+	}
+	
+	/**
+	 * Find the covered squares that are not adjacent to any uncovered Number,
+	 * stopping as soon as all of them are found
+	 * 
+	 * @param count the number of interior squares
+	 * @return the indexes of the interior squares
+	 */
+	private int[] getInteriorCells(int count) {
+		int[] interiorCells = new int[count];
+		for (int index = 0, found = 0; found < count; index++) {
+			if (isInterior(index)) {
+				interiorCells[found++] = index;
+			}
+		}
+		return interiorCells;
+	}
+	
+	/**
+	 * Choose a random covered square not adjacent to any uncovered Number,
+	 * drawing random squares until one is in the interior, or counting the
+	 * interior squares if they are too sparse
+	 * 
+	 * @param count the number of interior squares
+	 * @return the index of the chosen square
+	 */
+	private int getRandomInteriorCell(int count) {
+		int size = grid.getBoard().getSize();
+		for (int attempt = 0; attempt < INTERIOR_ATTEMPTS; attempt++) {
+			int index = grid.getSolverRandom().nextInt(size);
+			if (isInterior(index)) {
+				return index;
+			}
+		}
+		int skip = grid.getSolverRandom().nextInt(count);
+		for (int index = 0;; index++) {
+			if (isInterior(index) && skip-- == 0) {
+				return index;
+			}
 		}
-		return partitions;
 	}
 
 	@Override
@@ -81,7 +281,7 @@ public class CSPSolver implements MinesweeperSolver {
 		}
 		
 		// find all the partitions of covered squares
-		List<Set<Location>> partitions = calculatePartitions();
+		List<int[]> partitions = frontier.getPartitions();
 		if (partitions.size() == 0) {
 			return null;
 		}
@@ -89,150 +289,112 @@ public class CSPSolver implements MinesweeperSolver {
 		Set<Location> locationsToFlag = new HashSet<Location>();
 		Set<Location> locationsToUncover = new HashSet<Location>();
 		
-		// counters for the eventual bestGuess
-		Map<Location, Integer> locationWithMineCount = new HashMap<Location, Integer>();
-		Map<Location, Integer> locationWithoutMineCount = new HashMap<Location, Integer>();
-
-		// find solutions for each partition, starting from the biggest one
-		partitions.stream().sorted((x, y) -> Integer.compare(y.size(), x.size())).forEach(p -> {
-			HashMap<Location, BoolVar> map = new HashMap<Location, BoolVar>();
-			Model model = new Model("CSP_Model");
+		// start the budget of the step
+		long now = System.nanoTime();
+		this.enumerationDeadline = budget.getTimeLimit() == 0 ? 0 : now + budget.getTimeLimit() * 1000000;
+		this.samplingDeadline = budget.getTimeLimit() == 0 ? 0 : now + budget.getTimeLimit() * 2000000;
+		boolean isStepExact = true;
+		
+		int frontierCells = 0;
 
-			// create a BoolVar for each covered square in the partition
-			p.forEach(n -> {
-				// set a name for the BoolVars such that it is possible to
-				// obtain the location from it
-				String varName = String.format("(%d,%d)", n.getRow(), n.getColumn());
-				if (!map.containsKey(n)) {
-					BoolVar boolVar = model.boolVar(varName);
-					map.put(n, boolVar);
+		// find solutions for each partition, starting from the biggest one (then
+		// from the first square, so that the order does not depend on the index)
+		List<int[]> sortedPartitions = partitions.stream()
+				.sorted((x, y) -> x.length != y.length ? Integer.compare(y.length, x.length) : Integer.compare(x[0], y[0]))
+				.collect(Collectors.toList());
+		List<PartitionSolutions> solutions = new ArrayList<PartitionSolutions>();
+		for (PartitionSolutions partition : solvePartitions(sortedPartitions, grid.getSolverRandom().nextLong())) {
+			isStepExact &= partition.isExact();
+			if (partition.getSolutionsCount() > 0) {
+				// a partition without solutions does not agree with the flags, so
+				// nothing can be said about its squares
+				solutions.add(partition);
+			}
+			int[] cells = partition.getCells();
+			for (int i = 0; i < cells.length; i++) {
+				// add the squares with the same value in all the solutions
+				int value = partition.getCommonValue(i);
+				if (value == 1) {
+					locationsToFlag.add(grid.getLocation(cells[i]));
+				} else if (value == 0) {
+					locationsToUncover.add(grid.getLocation(cells[i]));
 				}
-			});
-			
-			if (map.size() == 0) {
-				return;
 			}
-			
-			// create model constraints
-			grid.getGridAsStream()
-					.filter(s -> s.getType() == SquareType.NUMBER && s.getState() == SquareState.UNCOVERED)
-					.filter(s -> grid.getNeighboursAsStream(s.getLocation()).filter(n -> n.getState() == SquareState.COVERED).allMatch(n -> p.contains(n.getLocation())))
-					.forEach(s -> {
-						List<BoolVar> boolVars = grid.getNeighboursAsStream(s.getLocation()).filter(n -> n.getState() == SquareState.COVERED).map(n -> map.get(n.getLocation())).collect(Collectors.toList());
-						if (boolVars.size() == 0) {
-							return;
-						}
-						int flaggedNeighbors = (int)grid.getNeighboursAsStream(s.getLocation()).filter(n -> n.getState() == SquareState.FLAGGED).count();
-						int sum = ((Number)s).getNeighbourBombsCount() - flaggedNeighbors;
-						BoolVar[] vars = boolVars.toArray(new BoolVar[] {});
-						model.sum(vars, "=", sum).post();
-			});
-			
-			Map<Location, Integer> mySolution = null;
-			Solver chocoSolver = model.getSolver();
-			while (chocoSolver.solve()) {
-				// for each solution to the model
-				Solution solution = new Solution(model, map.values().toArray(new BoolVar[] {}));
-				solution.record();
-				// increase counters in case no safe solution is found
-				// and a guess has to be taken
-				for (BoolVar bv : solution.retrieveBoolVars()) {
-					Location location = getLocationFromString(bv.getName());
-					if (bv.getValue() == 1) {
-						if (!locationWithMineCount.containsKey(location)) {
-							locationWithMineCount.put(location, 1);
-						} else {
-							locationWithMineCount.put(location, locationWithMineCount.get(location)+1);
-						}
-					} else {
-						if (!locationWithoutMineCount.containsKey(location)) {
-							locationWithoutMineCount.put(location, 1);
-						} else {
-							locationWithoutMineCount.put(location, locationWithoutMineCount.get(location)+1);
-						}
-					}
+			frontierCells += cells.length;
+		}
+		if (!locationsToFlag.isEmpty() || !locationsToUncover.isEmpty()) {
+			return new SolveStep(new ArrayList<Location>(locationsToFlag), new ArrayList<Location>(locationsToUncover), false, isStepExact);
+		}
+		
+		// if no safe solution has been found while iterating the partitions, compute
+		// the probabilities of the squares, considering the mines still to be found
+		// and the covered squares outside of the partitions
+		int remainingMines = grid.getConfig().getN_BOMBS() - grid.getFlaggedCount();
+		ProbabilityEngine probabilityEngine = new ProbabilityEngine(remainingMines, grid.getCoveredCount() - frontierCells);
+		solutions.forEach(probabilityEngine::addPartition);
+		probabilityEngine.compute();
+		
+		// find the locations with the lowest probability of containing a mine, adding
+		// the ones made certain by the number of mines, unless the probabilities come
+		// from sampled solutions
+		double bestProbability = 2;
+		int[] bestGuesses = new int[frontierCells];
+		int bestGuessesCount = 0;
+		for (PartitionSolutions partition : solutions) {
+			int[] cells = partition.getCells();
+			for (int i = 0; i < cells.length; i++) {
+				double probability = partition.getProbability(i);
+				if (isStepExact && probability == 1) {
+					locationsToFlag.add(grid.getLocation(cells[i]));
+				} else if (isStepExact && probability == 0) {
+					locationsToUncover.add(grid.getLocation(cells[i]));
 				}
-	
-				if (mySolution == null) {
-					// always save the first solution found
-					mySolution = new HashMap<Location, Integer>();
-					for (BoolVar bv : solution.retrieveBoolVars()) {
-						mySolution.put(getLocationFromString(bv.getName()), bv.getValue());
-					}
-				} else {
-					if (mySolution.size() == 0) {
-						// if no variables are always equal, then there is no safe solution
-						return;
-					} else {
-						for (BoolVar bv : solution.retrieveBoolVars()) {
-							// for each new solution found, only keep the variables that remain the same
-							Location location = getLocationFromString(bv.getName());
-							if (mySolution.containsKey(location)) {
-								if (!mySolution.get(location).equals(bv.getValue())) {
-									mySolution.remove(location);
-								}
-							}
-						}
-					}
+				if (probability < bestProbability) {
+					bestProbability = probability;
+					bestGuessesCount = 0;
+				}
+				if (probability == bestProbability) {
+					// also find how many guesses are there with the same probability
+					bestGuesses[bestGuessesCount++] = cells[i];
 				}
 			}
-			// no solution for the partition has been found
-			if (mySolution == null || mySolution.size() == 0) {
-				return;
+		}
+		double interiorProbability = probabilityEngine.getInteriorProbability();
+		if (isStepExact && probabilityEngine.getInteriorCells() > 0 && (interiorProbability == 0 || interiorProbability == 1)) {
+			for (int index : getInteriorCells(probabilityEngine.getInteriorCells())) {
+				(interiorProbability == 1 ? locationsToFlag : locationsToUncover).add(grid.getLocation(index));
 			}
-			
-			// add all the safe solutions for the partition to the final list
-			locationsToFlag.addAll(mySolution.entrySet().stream().filter(e -> e.getValue() == 1).map(e -> e.getKey()).collect(Collectors.toList()));
-			locationsToUncover.addAll(mySolution.entrySet().stream().filter(e -> e.getValue() == 0).map(e -> e.getKey()).collect(Collectors.toList()));
-		});
+		}
+		if (!locationsToFlag.isEmpty() || !locationsToUncover.isEmpty()) {
+			return new SolveStep(new ArrayList<Location>(locationsToFlag), new ArrayList<Location>(locationsToUncover), false, isStepExact);
+		}
 		
-		// if no safe solution has been found while iterating the partitions
-		if (locationsToFlag.isEmpty() && locationsToUncover.isEmpty()) {
-			// if there is still a covered corner, let the SolverManager uncover it
-			if (grid.getSquareAt(new Location(0, 0)).getState() == SquareState.COVERED
-					|| grid.getSquareAt(new Location(0, grid.getConfig().getN_COLUMNS()-1)).getState() == SquareState.COVERED
-					|| grid.getSquareAt(new Location(grid.getConfig().getN_ROWS()-1, grid.getConfig().getN_COLUMNS()-1)).getState() == SquareState.COVERED
-					|| grid.getSquareAt(new Location(grid.getConfig().getN_ROWS()-1, 0)).getState() == SquareState.COVERED) {
-				return null;
-			}
-			
-			Set<Location> keys = new HashSet<Location>();
-			keys.addAll(locationWithMineCount.keySet());
-			keys.addAll(locationWithoutMineCount.keySet());
-			Map<Location, Double> finalKeys = new HashMap<Location, Double>();
-			keys.forEach(k -> {
-				int withMineCount = locationWithMineCount.containsKey(k) ? locationWithMineCount.get(k) : 0;
-				int withoutMineCount = locationWithoutMineCount.containsKey(k) ? locationWithoutMineCount.get(k) : 0;
-				if (withMineCount == 0 && withoutMineCount == 0) {
-					finalKeys.put(k, 0.0);
-				} else {
-					finalKeys.put(k, (double)withoutMineCount / (withMineCount+withoutMineCount));
+		if (probabilityEngine.getInteriorCells() > 0 && interiorProbability <= bestProbability) {
+			// the interior squares are the best guess: prefer a covered corner, which
+			// is more likely to open an area, otherwise choose one randomly
+			int lastRow = grid.getConfig().getN_ROWS() - 1;
+			int lastColumn = grid.getConfig().getN_COLUMNS() - 1;
+			for (int index : new int[] { 0, lastColumn, grid.getBoard().getIndex(lastRow, 0), grid.getBoard().getIndex(lastRow, lastColumn) }) {
+				if (isInterior(index)) {
+					locationsToUncover.add(grid.getLocation(index));
+					return new SolveStep(new ArrayList<Location>(locationsToFlag), new ArrayList<Location>(locationsToUncover), false, isStepExact);
 				}
-			});
-
-			// find the location with the highest probability of being without a mine, if it
-			// exists, given by the percentage of solutions in which a BoolVar is not a mine
-			Optional<Map.Entry<Location, Double>> bestGuess = finalKeys.entrySet().stream().sorted((x, y) -> Double.compare(y.getValue(), x.getValue())).findFirst();
-			if (bestGuess.isPresent()) {
-				// if a best guess is found, also find how many guesses are there with the same probability
-				List<Map.Entry<Location, Double>> bestGuesses = finalKeys.entrySet().stream().filter(e -> e.getValue().equals(bestGuess.get().getValue())).collect(Collectors.toList());
-				if (bestGuesses.size() == 1) {
-					// if there is only 1, then add it as a solution
-					locationsToUncover.add(bestGuess.get().getKey());
-				} else {
-					// otherwise randomly choose a bestGuess
-					int randomGuess = new Random().nextInt(bestGuesses.size());
-					locationsToUncover.add(bestGuesses.get(randomGuess).getKey());
-					return new SolveStep(new ArrayList<Location>(locationsToFlag), new ArrayList<Location>(locationsToUncover), true);
-				}
-			} else {
-				// if a best guess can't be calculated, let the SolverManager uncover a random location
-				return null;
 			}
-			
-			return new SolveStep(new ArrayList<Location>(locationsToFlag), new ArrayList<Location>(locationsToUncover));
+			locationsToUncover.add(grid.getLocation(getRandomInteriorCell(probabilityEngine.getInteriorCells())));
+			return new SolveStep(new ArrayList<Location>(locationsToFlag), new ArrayList<Location>(locationsToUncover), true, isStepExact);
 		}
-
-		return new SolveStep(new ArrayList<Location>(locationsToFlag), new ArrayList<Location>(locationsToUncover));
+		if (bestGuessesCount == 0) {
+			// if a best guess can't be calculated, let the SolverManager uncover a random location
+			return null;
+		}
+		if (bestGuessesCount == 1) {
+			// if there is only 1, then add it as a solution
+			locationsToUncover.add(grid.getLocation(bestGuesses[0]));
+			return new SolveStep(new ArrayList<Location>(locationsToFlag), new ArrayList<Location>(locationsToUncover), false, isStepExact);
+		}
+		// otherwise randomly choose a bestGuess
+		int randomGuess = grid.getSolverRandom().nextInt(bestGuessesCount);
+		locationsToUncover.add(grid.getLocation(bestGuesses[randomGuess]));
+		return new SolveStep(new ArrayList<Location>(locationsToFlag), new ArrayList<Location>(locationsToUncover), true, isStepExact);
 	}
 }
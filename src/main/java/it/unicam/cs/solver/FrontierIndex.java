@@ -0,0 +1,352 @@
+package it.unicam.cs.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import it.unicam.cs.enumeration.SquareState;
+import it.unicam.cs.enumeration.SquareType;
+import it.unicam.cs.model.Board;
+import it.unicam.cs.model.Grid;
+import it.unicam.cs.model.Square;
+
+/**
+ * Class used to keep track of the frontier of a grid, the covered squares
+ * adjacent to an uncovered number, and of its partitions: two squares are in
+ * the same partition if they are adjacent to the same number, so the
+ * partitions can be solved independently.
+ * <p>
+ * The partitions are kept in a union-find structure of arrays indexed by
+ * square, like the ones of the board: every square points directly to the root
+ * of its partition and the squares of a partition are linked in a ring, so that
+ * the smaller partition is relabeled when two are joined. A square leaving the
+ * frontier can split its partition, which is then rebuilt from its remaining
+ * squares, while the other partitions are left untouched. So every update only
+ * touches the squares around the changed ones, and the sorted squares of a
+ * partition are only computed again when the partition changes.
+ * <p>
+ * The arrays are split in blocks allocated at their first use, so that only
+ * the areas of a chunked grid that were played take memory.
+ * <p>
+ * The index is built scanning the grid the first time it is used, and again if
+ * the board changed without being notified.
+ *
+ */
+public class FrontierIndex {
+	/** Number of squares in a block of the arrays, expressed as power of two **/
+	private static final int BLOCK_BITS = 12;
+	private static final int BLOCK_MASK = (1 << BLOCK_BITS) - 1;
+
+	/** Grid whose frontier is tracked **/
+	private final Grid grid;
+	/** Root of the partition of each square, -1 if not in the frontier **/
+	private final int[][] roots;
+	/** Next square of the partition of each square of the frontier **/
+	private final int[][] next;
+	/** Number of squares of each partition, by root **/
+	private final int[][] sizes;
+	/** Position of each partition in the partitions array, by root **/
+	private final int[][] positions;
+	/** Roots of the partitions **/
+	private int[] partitionRoots = new int[16];
+	/** Sorted squares of the partitions, null if the partition changed **/
+	private int[][] partitionCells = new int[16][];
+	/** Number of partitions **/
+	private int partitionsCount;
+	/** Board the index refers to, null if the index has to be built **/
+	private Board board;
+	/** Modifications of the board already considered by the index **/
+	private long modifications;
+	// support arrays used to read the neighbors of a Square and of its neighbors,
+	// and to collect the squares to add again during an update
+	private final int[] neighbours = new int[8];
+	private final int[] numberNeighbours = new int[8];
+	private int[] pending = new int[64];
+
+	public FrontierIndex(Grid grid) {
+		this.grid = grid;
+		int blocks = (int) (((long) grid.getConfig().getN_ROWS() * grid.getConfig().getN_COLUMNS() - 1) >>> BLOCK_BITS) + 1;
+		this.roots = new int[blocks][];
+		this.next = new int[blocks][];
+		this.sizes = new int[blocks][];
+		this.positions = new int[blocks][];
+	}
+
+	/**
+	 * Method to update the index with the Squares changed by a move. If the board
+	 * had other changes, the index is built again at its next use.
+	 *
+	 * @param changedSquares The Squares changed by the move.
+	 */
+	public void update(Collection<Square> changedSquares) {
+		if (board == null || board != grid.getBoard()
+				|| grid.getBoard().getModifications() - modifications != changedSquares.size()) {
+			board = null;
+			return;
+		}
+		int pendingCount = 0;
+		for (Square square : changedSquares) {
+			int index = square.getIndex();
+			// a square leaving the frontier can split its partition
+			int root = getRoot(index);
+			if (root >= 0) {
+				reserve(pendingCount + get(sizes, root));
+				int member = root;
+				do {
+					pending[pendingCount++] = member;
+					setRoot(member, -1);
+					member = get(next, member);
+				} while (member != root);
+				removePartition(root);
+			}
+			reserve(pendingCount + 9);
+			pending[pendingCount++] = index;
+			if (isUncoveredNumber(index)) {
+				// an uncovered number joins all its covered neighbors
+				int count = grid.getNeighbours(index, neighbours);
+				for (int k = 0; k < count; k++) {
+					pending[pendingCount++] = neighbours[k];
+				}
+			}
+		}
+		for (int i = 0; i < pendingCount; i++) {
+			add(pending[i]);
+		}
+		modifications = board.getModifications();
+	}
+
+	/**
+	 * Method to obtain the partitions of the frontier.
+	 *
+	 * @return The indexes of the squares of each partition, sorted.
+	 */
+	public List<int[]> getPartitions() {
+		checkBoard();
+		List<int[]> partitions = new ArrayList<int[]>(partitionsCount);
+		for (int p = 0; p < partitionsCount; p++) {
+			if (partitionCells[p] == null) {
+				int root = partitionRoots[p];
+				int[] cells = new int[get(sizes, root)];
+				int member = root;
+				for (int i = 0; i < cells.length; i++) {
+					cells[i] = member;
+					member = get(next, member);
+				}
+				Arrays.sort(cells);
+				partitionCells[p] = cells;
+			}
+			partitions.add(partitionCells[p]);
+		}
+		return partitions;
+	}
+
+	/**
+	 * Method to check if a square is in the frontier.
+	 *
+	 * @param index The index of the square.
+	 * @return True if it is covered and adjacent to an uncovered number.
+	 */
+	public boolean isFrontier(int index) {
+		checkBoard();
+		return getRoot(index) >= 0;
+	}
+
+	/**
+	 * Method to build the index, if the board changed without being notified.
+	 */
+	private void checkBoard() {
+		if (board != null && board == grid.getBoard() && board.getModifications() == modifications) {
+			return;
+		}
+		Arrays.fill(roots, null);
+		Arrays.fill(next, null);
+		Arrays.fill(sizes, null);
+		Arrays.fill(positions, null);
+		Arrays.fill(partitionCells, null);
+		partitionsCount = 0;
+		board = grid.getBoard();
+		if (board == null) {
+			return;
+		}
+		modifications = board.getModifications();
+		grid.getTouchedIndexes().filter(this::isUncoveredNumber).forEach(index -> {
+			int count = grid.getNeighbours(index, neighbours);
+			for (int k = 0; k < count; k++) {
+				add(neighbours[k]);
+			}
+		});
+	}
+
+	/**
+	 * Method to add a square to the frontier, if it is covered and adjacent to an
+	 * uncovered number, joining it with the squares adjacent to the same numbers.
+	 *
+	 * @param index The index of the square.
+	 */
+	private void add(int index) {
+		if (grid.getState(index) != SquareState.COVERED) {
+			return;
+		}
+		int count = grid.getNeighbours(index, neighbours);
+		for (int k = 0; k < count; k++) {
+			if (isUncoveredNumber(neighbours[k])) {
+				int numberCount = grid.getNeighbours(neighbours[k], numberNeighbours);
+				for (int j = 0; j < numberCount; j++) {
+					if (grid.getState(numberNeighbours[j]) == SquareState.COVERED) {
+						union(index, numberNeighbours[j]);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Method to join the partitions of two squares, adding the squares to the
+	 * frontier if they are not part of it yet.
+	 *
+	 * @param first  The index of the first square.
+	 * @param second The index of the second square.
+	 */
+	private void union(int first, int second) {
+		int firstRoot = getOrCreateRoot(first);
+		int secondRoot = getOrCreateRoot(second);
+		if (firstRoot == secondRoot) {
+			return;
+		}
+		if (get(sizes, firstRoot) < get(sizes, secondRoot)) {
+			union(second, first);
+			return;
+		}
+		// relabel the smaller partition, then join the two rings
+		int member = secondRoot;
+		do {
+			setRoot(member, firstRoot);
+			member = get(next, member);
+		} while (member != secondRoot);
+		int firstNext = get(next, firstRoot);
+		set(next, firstRoot, get(next, secondRoot));
+		set(next, secondRoot, firstNext);
+		set(sizes, firstRoot, get(sizes, firstRoot) + get(sizes, secondRoot));
+		removePartition(secondRoot);
+		partitionCells[get(positions, firstRoot)] = null;
+	}
+
+	/**
+	 * Method to obtain the root of the partition of a square, creating a new
+	 * partition if the square is not part of the frontier.
+	 *
+	 * @param index The index of the square.
+	 * @return The index of the root.
+	 */
+	private int getOrCreateRoot(int index) {
+		int root = getRoot(index);
+		if (root < 0) {
+			setRoot(index, index);
+			set(next, index, index);
+			set(sizes, index, 1);
+			if (partitionsCount == partitionRoots.length) {
+				partitionRoots = Arrays.copyOf(partitionRoots, partitionsCount * 2);
+				partitionCells = Arrays.copyOf(partitionCells, partitionsCount * 2);
+			}
+			set(positions, index, partitionsCount);
+			partitionRoots[partitionsCount] = index;
+			partitionCells[partitionsCount++] = null;
+			return index;
+		}
+		return root;
+	}
+
+	/**
+	 * Method to obtain the root of the partition of a square.
+	 *
+	 * @param index The index of the square.
+	 * @return The index of the root, -1 if the square is not in the frontier.
+	 */
+	private int getRoot(int index) {
+		int[] block = roots[index >>> BLOCK_BITS];
+		return block == null ? -1 : block[index & BLOCK_MASK];
+	}
+
+	/**
+	 * Method to remove a partition from the partitions array, moving the last one
+	 * in its place.
+	 *
+	 * @param root The root of the partition.
+	 */
+	private void removePartition(int root) {
+		int position = get(positions, root);
+		int last = --partitionsCount;
+		partitionRoots[position] = partitionRoots[last];
+		partitionCells[position] = partitionCells[last];
+		partitionCells[last] = null;
+		set(positions, partitionRoots[position], position);
+	}
+
+	/**
+	 * Method to change the root of the partition of a square, allocating its
+	 * block if needed.
+	 *
+	 * @param index The index of the square.
+	 * @param root  The index of the root, -1 to remove the square from the
+	 *              frontier.
+	 */
+	private void setRoot(int index, int root) {
+		int[] block = roots[index >>> BLOCK_BITS];
+		if (block == null) {
+			block = new int[1 << BLOCK_BITS];
+			Arrays.fill(block, -1);
+			roots[index >>> BLOCK_BITS] = block;
+		}
+		block[index & BLOCK_MASK] = root;
+	}
+
+	/**
+	 * Method to make room in the pending array.
+	 *
+	 * @param capacity The number of squares the array has to hold.
+	 */
+	private void reserve(int capacity) {
+		if (capacity > pending.length) {
+			pending = Arrays.copyOf(pending, Math.max(capacity, pending.length * 2));
+		}
+	}
+
+	/**
+	 * Method to read the value of a square in one of the arrays.
+	 *
+	 * @param array The array, split in blocks.
+	 * @param index The index of the square.
+	 * @return The value of the square.
+	 */
+	private static int get(int[][] array, int index) {
+		return array[index >>> BLOCK_BITS][index & BLOCK_MASK];
+	}
+
+	/**
+	 * Method to write the value of a square in one of the arrays, allocating its
+	 * block if needed.
+	 *
+	 * @param array The array, split in blocks.
+	 * @param index The index of the square.
+	 * @param value The value of the square.
+	 */
+	private static void set(int[][] array, int index, int value) {
+		int[] block = array[index >>> BLOCK_BITS];
+		if (block == null) {
+			block = new int[1 << BLOCK_BITS];
+			array[index >>> BLOCK_BITS] = block;
+		}
+		block[index & BLOCK_MASK] = value;
+	}
+
+	/**
+	 * Method to check if a Square is an uncovered Number.
+	 *
+	 * @param index The index of the Square.
+	 * @return True if the Square is an uncovered Number.
+	 */
+	private boolean isUncoveredNumber(int index) {
+		return grid.getState(index) == SquareState.UNCOVERED && grid.getType(index) == SquareType.NUMBER;
+	}
+}
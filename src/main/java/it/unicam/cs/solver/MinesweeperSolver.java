@@ -1,5 +1,10 @@
 package it.unicam.cs.solver;
 
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+
+import it.unicam.cs.model.Square;
+
 /**
  * Interface that represents a Minesweeper Solver.
  */
@@ -10,4 +15,31 @@ public interface MinesweeperSolver {
 	 * @return The SolveStep (list of locations) that the Solver has to manage.
 	 */
 	public SolveStep solveByStep();
+	
+	/**
+	 * Method used to limit the work of the concrete Solver in each step, ignored
+	 * by the Solvers whose steps are always cheap.
+	 * 
+	 * @param budget The limits of each step.
+	 */
+	public default void setBudget(SolverBudget budget) {
+	}
+	
+	/**
+	 * Method used to let the concrete Solver split the work of each step on a
+	 * pool of threads, ignored by the Solvers whose steps are always cheap.
+	 * 
+	 * @param pool The pool to use, null to work only on the calling thread.
+	 */
+	public default void setPool(ForkJoinPool pool) {
+	}
+	
+	/**
+	 * Method used to inform the concrete Solver of the Squares changed by the
+	 * last step, ignored by the Solvers reading the whole grid at every step.
+	 * 
+	 * @param changedSquares The Squares changed.
+	 */
+	public default void update(Collection<Square> changedSquares) {
+	}
 }
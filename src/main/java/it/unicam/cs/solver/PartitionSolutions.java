@@ -0,0 +1,135 @@
+package it.unicam.cs.solver;
+
+import org.chocosolver.solver.variables.BoolVar;
+
+import lombok.Getter;
+
+/**
+ * Class to represent the solutions of a partition of covered squares, counted
+ * by number of mines: for every number of mines, how many solutions place that
+ * many mines in the partition and, among them, how many place a mine on each
+ * square. The counts are kept as doubles, which are exact up to 2^53.
+ *
+ */
+public class PartitionSolutions {
+	/** Indexes of the covered squares of the partition **/
+	@Getter
+	private final int[] cells;
+	/** Number of solutions, by number of mines **/
+	private final double[] solutions;
+	/** Number of solutions placing a mine on each square, by number of mines (null if no solution has that many mines) **/
+	private final double[][] mines;
+	/** Total number of solutions found **/
+	@Getter
+	private long solutionsCount;
+	/** Whether all the solutions were found, false if they were sampled **/
+	@Getter
+	private boolean exact = true;
+	/** Probability of each square to contain a mine, once computed by the ProbabilityEngine **/
+	private double[] probabilities;
+
+	public PartitionSolutions(int[] cells) {
+		this.cells = cells;
+		this.solutions = new double[cells.length + 1];
+		this.mines = new double[cells.length + 1][];
+	}
+
+	/**
+	 * Method to count a solution of the partition.
+	 *
+	 * @param vars The BoolVars of the squares, aligned with the cells, holding the
+	 *             values of the solution.
+	 */
+	public void addSolution(BoolVar[] vars) {
+		int minesCount = 0;
+		for (BoolVar var : vars) {
+			minesCount += var.getValue();
+		}
+		if (mines[minesCount] == null) {
+			mines[minesCount] = new double[cells.length];
+		}
+		double[] minesByCell = mines[minesCount];
+		for (int i = 0; i < vars.length; i++) {
+			minesByCell[i] += vars[i].getValue();
+		}
+		solutions[minesCount]++;
+		solutionsCount++;
+	}
+
+	/**
+	 * Method to obtain the number of solutions placing a certain number of mines.
+	 *
+	 * @param minesCount The number of mines.
+	 * @return The number of solutions.
+	 */
+	public double getSolutions(int minesCount) {
+		return solutions[minesCount];
+	}
+
+	/**
+	 * Method to obtain the number of solutions placing a certain number of mines
+	 * and a mine on a square.
+	 *
+	 * @param minesCount The number of mines.
+	 * @param cell       The position of the square in the partition.
+	 * @return The number of solutions.
+	 */
+	public double getMines(int minesCount, int cell) {
+		return mines[minesCount] == null ? 0 : mines[minesCount][cell];
+	}
+
+	/**
+	 * Method to obtain the maximum number of mines the partition can contain.
+	 *
+	 * @return The number of squares of the partition.
+	 */
+	public int getMaxMines() {
+		return cells.length;
+	}
+
+	/**
+	 * Method to obtain the value a square has in all the solutions found.
+	 *
+	 * @param cell The position of the square in the partition.
+	 * @return 1 if it is always a mine, 0 if it is never a mine, -1 otherwise, if
+	 *         no solution was found or if they were sampled.
+	 */
+	public int getCommonValue(int cell) {
+		if (solutionsCount == 0 || !exact) {
+			return -1;
+		}
+		double minesCount = 0;
+		for (double[] minesByCell : mines) {
+			if (minesByCell != null) {
+				minesCount += minesByCell[cell];
+			}
+		}
+		return minesCount == 0 ? 0 : minesCount == solutionsCount ? 1 : -1;
+	}
+
+	/**
+	 * Method to obtain the probability of a square to contain a mine.
+	 *
+	 * @param cell The position of the square in the partition.
+	 * @return The probability, computed by the ProbabilityEngine.
+	 */
+	public double getProbability(int cell) {
+		return probabilities[cell];
+	}
+
+	/**
+	 * Method to mark the solutions as a sample of all the solutions.
+	 */
+	void setApproximate() {
+		this.exact = false;
+	}
+
+	/**
+	 * Method to set the probabilities of the squares to contain a mine.
+	 *
+	 * @param probabilities The probabilities, aligned with the cells.
+	 */
+	void setProbabilities(double[] probabilities) {
+		this.probabilities = probabilities;
+	}
+}
@@ -0,0 +1,301 @@
+package it.unicam.cs.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * Class used to compute the exact probability of every covered square to
+ * contain a mine, given the solutions of the independent partitions of the
+ * frontier and the number of mines still to be found.
+ * <p>
+ * A combination of solutions of the partitions placing t mines in the frontier
+ * leaves M - t mines for the I interior squares (the covered squares not
+ * adjacent to any uncovered number), which can be placed in C(I, M - t) ways.
+ * Every solution of a partition is therefore weighted by the ways of completing
+ * it: the sum, over the mines placed by the other partitions, of their number
+ * of solutions times the binomial coefficient of the remaining mines. The
+ * binomial coefficients are computed as logarithms, relative to the largest
+ * one, so that they do not overflow on large boards.
+ * <p>
+ * Since the weights can still underflow, whether a square can contain a mine
+ * or not is decided separately, on which combinations are possible at all: a
+ * square gets probability 0 or 1 only if it is certain.
+ *
+ */
+public class ProbabilityEngine {
+	/** Number of mines not yet flagged **/
+	private final int remainingMines;
+	/** Number of covered squares not adjacent to any uncovered number **/
+	@Getter
+	private final int interiorCells;
+	/** Solutions of the partitions of the frontier **/
+	private final List<PartitionSolutions> partitions = new ArrayList<PartitionSolutions>();
+	/** Probability of every interior square to contain a mine **/
+	@Getter
+	private double interiorProbability;
+
+	public ProbabilityEngine(int remainingMines, int interiorCells) {
+		this.remainingMines = remainingMines;
+		this.interiorCells = interiorCells;
+	}
+
+	/**
+	 * Method to add the solutions of a partition, which must be independent from
+	 * the ones already added.
+	 *
+	 * @param partition The solutions of the partition.
+	 */
+	public void addPartition(PartitionSolutions partition) {
+		partitions.add(partition);
+	}
+
+	/**
+	 * Method to compute the probabilities of all the squares, setting them in the
+	 * partitions. If no combination of the solutions agrees with the number of
+	 * remaining mines (the flags are wrong), that number is ignored.
+	 */
+	public void compute() {
+		int n = partitions.size();
+		// number of solutions of each partition, by number of mines, scaled so that
+		// the largest one is 1, and whether there is any
+		double[][] distributions = new double[n][];
+		boolean[][] possible = new boolean[n][];
+		int frontierCells = 0;
+		for (int p = 0; p < n; p++) {
+			PartitionSolutions partition = partitions.get(p);
+			distributions[p] = new double[partition.getMaxMines() + 1];
+			possible[p] = new boolean[partition.getMaxMines() + 1];
+			double max = 0;
+			for (int k = 0; k <= partition.getMaxMines(); k++) {
+				max = Math.max(max, partition.getSolutions(k));
+			}
+			for (int k = 0; k <= partition.getMaxMines(); k++) {
+				distributions[p][k] = max == 0 ? 0 : partition.getSolutions(k) / max;
+				possible[p][k] = partition.getSolutions(k) > 0;
+			}
+			frontierCells += partition.getMaxMines();
+		}
+		// combined solutions of the partitions before and after each one
+		double[][] prefixes = new double[n + 1][];
+		double[][] suffixes = new double[n + 1][];
+		boolean[][] possiblePrefixes = new boolean[n + 1][];
+		boolean[][] possibleSuffixes = new boolean[n + 1][];
+		prefixes[0] = suffixes[n] = new double[] { 1 };
+		possiblePrefixes[0] = possibleSuffixes[n] = new boolean[] { true };
+		for (int p = 0; p < n; p++) {
+			prefixes[p + 1] = convolve(prefixes[p], distributions[p]);
+			suffixes[n - p - 1] = convolve(distributions[n - p - 1], suffixes[n - p]);
+			possiblePrefixes[p + 1] = convolve(possiblePrefixes[p], possible[p]);
+			possibleSuffixes[n - p - 1] = convolve(possible[n - p - 1], possibleSuffixes[n - p]);
+		}
+		double[] weights = new double[frontierCells + 1];
+		boolean[] feasible = new boolean[frontierCells + 1];
+		computeInteriorWeights(weights, feasible);
+		if (!hasSolutions(possiblePrefixes[n], feasible)) {
+			// the flags disagree with the number of mines, so it is not considered
+			Arrays.fill(weights, 1);
+			Arrays.fill(feasible, true);
+		}
+		for (int p = 0; p < n; p++) {
+			computeProbabilities(partitions.get(p), convolve(prefixes[p], suffixes[p + 1]),
+					convolve(possiblePrefixes[p], possibleSuffixes[p + 1]), weights, feasible);
+		}
+		computeInteriorProbability(prefixes[n], possiblePrefixes[n], weights, feasible);
+	}
+
+	/**
+	 * Method to compute the probabilities of the squares of a partition.
+	 *
+	 * @param partition      The partition.
+	 * @param others         The combined solutions of the other partitions, by
+	 *                       number of mines.
+	 * @param possibleOthers Whether the other partitions can place each number of
+	 *                       mines.
+	 * @param weights        The relative ways of placing the mines left to the
+	 *                       interior, by number of mines in the frontier.
+	 * @param feasible       Whether the mines left to the interior can be placed,
+	 *                       by number of mines in the frontier.
+	 */
+	private void computeProbabilities(PartitionSolutions partition, double[] others, boolean[] possibleOthers,
+			double[] weights, boolean[] feasible) {
+		// ways of completing a solution of the partition, by its number of mines
+		double[] completions = new double[partition.getMaxMines() + 1];
+		boolean[] completable = new boolean[partition.getMaxMines() + 1];
+		double total = 0;
+		for (int k = 0; k <= partition.getMaxMines(); k++) {
+			for (int t = 0; t < others.length; t++) {
+				completions[k] += others[t] * weights[k + t];
+				completable[k] |= possibleOthers[t] && feasible[k + t];
+			}
+			total += partition.getSolutions(k) * completions[k];
+		}
+		double[] probabilities = new double[partition.getCells().length];
+		for (int i = 0; i < probabilities.length; i++) {
+			double mines = 0;
+			boolean possibleMine = false;
+			boolean possibleSafe = false;
+			for (int k = 0; k <= partition.getMaxMines(); k++) {
+				double withMine = partition.getMines(k, i);
+				mines += withMine * completions[k];
+				possibleMine |= completable[k] && withMine > 0;
+				possibleSafe |= completable[k] && partition.getSolutions(k) > withMine;
+			}
+			probabilities[i] = getProbability(mines, total, possibleMine, possibleSafe);
+		}
+		partition.setProbabilities(probabilities);
+	}
+
+	/**
+	 * Method to compute the probability of the interior squares.
+	 *
+	 * @param frontier         The combined solutions of all the partitions, by
+	 *                         number of mines.
+	 * @param possibleFrontier Whether the partitions can place each number of
+	 *                         mines.
+	 * @param weights          The relative ways of placing the mines left to the
+	 *                         interior, by number of mines in the frontier.
+	 * @param feasible         Whether the mines left to the interior can be
+	 *                         placed, by number of mines in the frontier.
+	 */
+	private void computeInteriorProbability(double[] frontier, boolean[] possibleFrontier, double[] weights,
+			boolean[] feasible) {
+		if (interiorCells == 0) {
+			interiorProbability = 0;
+			return;
+		}
+		double total = 0;
+		double mines = 0;
+		boolean possibleMine = false;
+		boolean possibleSafe = false;
+		for (int t = 0; t < frontier.length; t++) {
+			int left = Math.max(0, remainingMines - t);
+			double ways = frontier[t] * weights[t];
+			total += ways;
+			mines += ways * left / interiorCells;
+			possibleMine |= possibleFrontier[t] && feasible[t] && left > 0;
+			possibleSafe |= possibleFrontier[t] && feasible[t] && left < interiorCells;
+		}
+		interiorProbability = getProbability(mines, total, possibleMine, possibleSafe);
+	}
+
+	/**
+	 * Method to obtain a probability, making sure it is 0 or 1 only if certain.
+	 *
+	 * @param mines        The weighted solutions with a mine.
+	 * @param total        The weighted solutions.
+	 * @param possibleMine Whether there is a possible solution with a mine.
+	 * @param possibleSafe Whether there is a possible solution without a mine.
+	 * @return The probability of a mine.
+	 */
+	private static double getProbability(double mines, double total, boolean possibleMine, boolean possibleSafe) {
+		if (!possibleMine) {
+			return 0;
+		}
+		if (!possibleSafe) {
+			return 1;
+		}
+		double probability = total == 0 ? 0.5 : mines / total;
+		return Math.min(Math.max(probability, Double.MIN_VALUE), 1 - Math.ulp(1.0));
+	}
+
+	/**
+	 * Method to compute the ways of placing the mines left to the interior, for
+	 * every number of mines in the frontier, relative to the largest one.
+	 *
+	 * @param weights  The array to fill with the weights, by number of mines in the
+	 *                 frontier (0 if the remaining mines cannot be placed in the
+	 *                 interior).
+	 * @param feasible The array to fill with whether the remaining mines can be
+	 *                 placed in the interior.
+	 */
+	private void computeInteriorWeights(double[] weights, boolean[] feasible) {
+		int frontierCells = weights.length - 1;
+		// logarithm of C(I, m) relative to C(I, lowest), for m from lowest to highest
+		int lowest = Math.max(0, remainingMines - frontierCells);
+		int highest = Math.min(interiorCells, remainingMines);
+		if (lowest > highest) {
+			return;
+		}
+		double[] logarithms = new double[highest - lowest + 1];
+		double max = 0;
+		for (int m = lowest; m < highest; m++) {
+			logarithms[m - lowest + 1] = logarithms[m - lowest] + Math.log(interiorCells - m) - Math.log(m + 1);
+			max = Math.max(max, logarithms[m - lowest + 1]);
+		}
+		for (int m = lowest; m <= highest; m++) {
+			weights[remainingMines - m] = Math.exp(logarithms[m - lowest] - max);
+			feasible[remainingMines - m] = true;
+		}
+	}
+
+	/**
+	 * Method to check if some combination of solutions is possible.
+	 *
+	 * @param possibleFrontier Whether the partitions can place each number of
+	 *                         mines.
+	 * @param feasible         Whether the mines left to the interior can be
+	 *                         placed, by number of mines in the frontier.
+	 * @return True if a combination is possible, false otherwise.
+	 */
+	private static boolean hasSolutions(boolean[] possibleFrontier, boolean[] feasible) {
+		for (int t = 0; t < possibleFrontier.length; t++) {
+			if (possibleFrontier[t] && feasible[t]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Method to combine two distributions of solutions, by number of mines, scaling
+	 * the result so that its largest value is 1.
+	 *
+	 * @param first  The first distribution.
+	 * @param second The second distribution.
+	 * @return The distribution of the combinations.
+	 */
+	private static double[] convolve(double[] first, double[] second) {
+		double[] result = new double[first.length + second.length - 1];
+		double max = 0;
+		for (int i = 0; i < first.length; i++) {
+			if (first[i] == 0) {
+				continue;
+			}
+			for (int j = 0; j < second.length; j++) {
+				result[i + j] += first[i] * second[j];
+			}
+		}
+		for (double value : result) {
+			max = Math.max(max, value);
+		}
+		if (max > 0) {
+			for (int i = 0; i < result.length; i++) {
+				result[i] /= max;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Method to combine two sets of possible numbers of mines.
+	 *
+	 * @param first  Whether the first partitions can place each number of mines.
+	 * @param second Whether the second partitions can place each number of mines.
+	 * @return Whether the combinations can place each number of mines.
+	 */
+	private static boolean[] convolve(boolean[] first, boolean[] second) {
+		boolean[] result = new boolean[first.length + second.length - 1];
+		for (int i = 0; i < first.length; i++) {
+			if (!first[i]) {
+				continue;
+			}
+			for (int j = 0; j < second.length; j++) {
+				result[i + j] |= second[j];
+			}
+		}
+		return result;
+	}
+}
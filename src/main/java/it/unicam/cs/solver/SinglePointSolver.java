@@ -1,39 +1,89 @@
 package it.unicam.cs.solver;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Set;
 
 import it.unicam.cs.enumeration.SquareState;
 import it.unicam.cs.enumeration.SquareType;
+import it.unicam.cs.model.Bitboard;
 import it.unicam.cs.model.Grid;
 import it.unicam.cs.model.Location;
-import it.unicam.cs.model.Number;
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
 
 /**
  * Class used to represent a Minesweeper Solver that uses the Single Point Strategy.
  *
  */
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class SinglePointSolver implements MinesweeperSolver {
 
 	/**	Grid used by the Solver to solve the game**/
-	private Grid grid;
+	private final Grid grid;
+	/** Support array used to read the neighbors of a Square **/
+	private final int[] neighbours = new int[8];
+
+	/**
+	 * Method to collect the covered neighbors of a Square, skipping the already selected ones.
+	 * @param count Number of neighbors stored in the support array.
+	 * @param selected The Squares already selected.
+	 * @param locations The list where to add the locations of the covered neighbors.
+	 */
+	private void collectCoveredNeighbours(int count, Set<Integer> selected, List<Location> locations) {
+		for (int k = 0; k < count; k++) {
+			int neighbour = neighbours[k];
+			if (grid.getState(neighbour) == SquareState.COVERED && selected.add(neighbour)) {
+				locations.add(grid.getLocation(neighbour));
+			}
+		}
+	}
+
+	/**
+	 * Method to obtain the uncovered Numbers from the layers of the Bitboard.
+	 * @param bitboard The Bitboard of the grid.
+	 * @return The layer of the uncovered Numbers.
+	 */
+	private long[] getUncoveredNumbers(Bitboard bitboard) {
+		return Bitboard.and(bitboard.getUncovered(), bitboard.getNumbers());
+	}
+
+	/**
+	 * Method to convert a layer of the Bitboard into a list of locations.
+	 * @param layer The layer to convert.
+	 * @return List of the locations of the cells set in the layer.
+	 */
+	private List<Location> getLocations(long[] layer) {
+		List<Location> locations = new ArrayList<Location>();
+		for (int index : grid.getBitboard().getIndexes(layer)) {
+			locations.add(grid.getLocation(index));
+		}
+		return locations;
+	}
 
 	/**
 	 * Method to check all mine neighbors (AMN).
 	 * @return List of locations to flag.
 	 */
 	private List<Location> allMineNeighbors() {
-		return grid.getGridAsStream().filter(s -> s.getState() == SquareState.UNCOVERED && s.getType() == SquareType.NUMBER).flatMap(s -> {
-			long neighbours = grid.getNeighboursAsStream(s.getLocation()).filter(n -> n.getState() == SquareState.FLAGGED || n.getState() == SquareState.COVERED).count();
-			if (neighbours == ((Number)s).getNeighbourBombsCount()) {
-				return grid.getNeighboursAsStream(s.getLocation()).filter(n -> n.getState() == SquareState.COVERED).map(n -> n.getLocation());
-			} else {
-				return Stream.empty();
+		Bitboard bitboard = grid.getBitboard();
+		if (bitboard != null) {
+			// numbers whose covered and flagged neighbors are as many as their bombs
+			long[] coveredOrFlagged = Bitboard.or(bitboard.getCovered(), bitboard.getFlagged());
+			long[] numbers = Bitboard.and(getUncoveredNumbers(bitboard), bitboard.equal(bitboard.countNeighbours(coveredOrFlagged), bitboard.getNeighbourBombs()));
+			return getLocations(Bitboard.and(bitboard.dilate(numbers), bitboard.getCovered()));
+		}
+		Set<Integer> selected = new HashSet<Integer>();
+		List<Location> locations = new ArrayList<Location>();
+		for (int index : grid.getTouchedIndexes().toArray()) {
+			if (grid.getState(index) == SquareState.UNCOVERED && grid.getType(index) == SquareType.NUMBER) {
+				int coveredCount = grid.getCoveredNeighboursCount(index);
+				if (coveredCount > 0 && grid.getFlaggedNeighboursCount(index) + coveredCount == grid.getNeighbourBombsCount(index)) {
+					collectCoveredNeighbours(grid.getNeighbours(index, neighbours), selected, locations);
+				}
 			}
-		}).distinct().collect(Collectors.toList());
+		}
+		return locations;
 	}
 	
 	/**
@@ -41,14 +91,22 @@ public class SinglePointSolver implements MinesweeperSolver {
 	 * @return List of locations to uncover.
 	 */
 	private List<Location> allFreeNeighbors() {
-		return grid.getGridAsStream().filter(s -> s.getState() == SquareState.UNCOVERED && s.getType() == SquareType.NUMBER).flatMap(s -> {
-			long neighbours = grid.getNeighboursAsStream(s.getLocation()).filter(n -> n.getState() == SquareState.FLAGGED).count();
-			if (neighbours == ((Number)s).getNeighbourBombsCount()) {
-				return grid.getNeighboursAsStream(s.getLocation()).filter(n -> n.getState() == SquareState.COVERED).map(n -> n.getLocation());
-			} else {
-				return Stream.empty();
+		Bitboard bitboard = grid.getBitboard();
+		if (bitboard != null) {
+			// numbers whose flagged neighbors are as many as their bombs
+			long[] numbers = Bitboard.and(getUncoveredNumbers(bitboard), bitboard.equal(bitboard.countNeighbours(bitboard.getFlagged()), bitboard.getNeighbourBombs()));
+			return getLocations(Bitboard.and(bitboard.dilate(numbers), bitboard.getCovered()));
+		}
+		Set<Integer> selected = new HashSet<Integer>();
+		List<Location> locations = new ArrayList<Location>();
+		for (int index : grid.getTouchedIndexes().toArray()) {
+			if (grid.getState(index) == SquareState.UNCOVERED && grid.getType(index) == SquareType.NUMBER) {
+				if (grid.getCoveredNeighboursCount(index) > 0 && grid.getFlaggedNeighboursCount(index) == grid.getNeighbourBombsCount(index)) {
+					collectCoveredNeighbours(grid.getNeighbours(index, neighbours), selected, locations);
+				}
 			}
-		}).distinct().collect(Collectors.toList());
+		}
+		return locations;
 	}
 
 	@Override
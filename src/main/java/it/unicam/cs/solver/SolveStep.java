@@ -21,8 +21,14 @@ public class SolveStep {
 	private List<Location> locationsToUncover;
 	/** Whether the solve step is not certain **/
 	private boolean isStepRandom;
+	/** Whether the solve step considered all the solutions, false if the budget was over and they were sampled **/
+	private boolean isStepExact;
 	
 	public SolveStep(List<Location> locationsToFlag, List<Location> locationsToUncover) {
 		this(locationsToFlag, locationsToUncover, false);
 	}
+	
+	public SolveStep(List<Location> locationsToFlag, List<Location> locationsToUncover, boolean isStepRandom) {
+		this(locationsToFlag, locationsToUncover, isStepRandom, true);
+	}
 }
@@ -0,0 +1,36 @@
+package it.unicam.cs.solver;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Class to represent the limits of the work a Solver can do in a single step.
+ * When the limits are reached, the Solver stops enumerating the solutions and
+ * estimates the probabilities on a sample of them, so the step is no longer
+ * exact. A limit equal to 0 means no limit.
+ *
+ */
+@Getter
+@AllArgsConstructor
+public class SolverBudget {
+	/** System property with the milliseconds of the default budget **/
+	public static final String TIME_PROPERTY = "minesweeper.budget.time";
+	/** System property with the solutions of the default budget **/
+	public static final String SOLUTIONS_PROPERTY = "minesweeper.budget.solutions";
+	/** System property with the samples of the default budget **/
+	public static final String SAMPLES_PROPERTY = "minesweeper.budget.samples";
+	/** Budget without limits, always enumerating all the solutions **/
+	public static final SolverBudget UNLIMITED = new SolverBudget(0, 0, 0);
+
+	/** Budget of the SolverManagers created without specifying one **/
+	@Getter
+	private static final SolverBudget defaultBudget = new SolverBudget(Long.getLong(TIME_PROPERTY, 1000),
+			Long.getLong(SOLUTIONS_PROPERTY, 1000000), Integer.getInteger(SAMPLES_PROPERTY, 2000));
+
+	/** Milliseconds to enumerate the solutions in a step, then as many to sample them **/
+	private final long timeLimit;
+	/** Solutions to enumerate in a step, split evenly among its partitions **/
+	private final long solutionLimit;
+	/** Solutions to sample for a partition when the budget is over (0 to keep the ones enumerated) **/
+	private final int samples;
+}
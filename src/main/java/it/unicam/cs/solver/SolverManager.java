@@ -1,14 +1,17 @@
 package it.unicam.cs.solver;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import it.unicam.cs.enumeration.GameState;
 import it.unicam.cs.enumeration.SolveStrategy;
 import it.unicam.cs.enumeration.SquareState;
 import it.unicam.cs.model.Grid;
 import it.unicam.cs.model.Location;
-import it.unicam.cs.utils.DroolsUtils;
+import it.unicam.cs.model.Square;
 import lombok.Getter;
 
 /**
@@ -17,6 +20,12 @@ import lombok.Getter;
  *
  */
 public class SolverManager {
+	/** System property with the number of threads solving the partitions of a step (the common pool if not given, 1 for none) **/
+	public static final String PARALLELISM_PROPERTY = "minesweeper.parallelism";
+	/** Pool of the SolverManagers created, null if the steps are solved on the calling thread **/
+	@Getter
+	private static final ForkJoinPool defaultPool = createDefaultPool();
+
 	/** The Solver used to solve the game **/
 	private MinesweeperSolver solver;
 	/** The grid used by the Solver **/
@@ -28,16 +37,32 @@ public class SolverManager {
 	private boolean isLastStepRandom;
 	/** Whether to record statistics **/
 	private boolean shouldRecordStatistics;
+	/** Squares changed by the last step **/
+	@Getter
+	private Set<Square> lastChangedSquares = Collections.emptySet();
+	/** Limits of the work of the Solver in each step **/
+	@Getter
+	private SolverBudget budget;
+	/** Pool where the Solver splits the work of each step **/
+	@Getter
+	private ForkJoinPool pool = defaultPool;
 
 	public SolverManager(SolveStrategy strategy, Grid grid) {
 		this(strategy, grid, false);
 	}
 
 	public SolverManager(SolveStrategy strategy, Grid grid, boolean shouldRecordStatistics) {
+		this(strategy, grid, shouldRecordStatistics, SolverBudget.getDefaultBudget());
+	}
+
+	public SolverManager(SolveStrategy strategy, Grid grid, boolean shouldRecordStatistics, SolverBudget budget) {
+		this.budget = budget;
 		try {
 			// use dynamic class loading to choose the correct factory for the solver
 			SolverFactory factory = Class.forName(strategy.getSolverClass().getPackage().getName() + "." + strategy.getSolverClass().getSimpleName() + "Factory").asSubclass(SolverFactory.class).getDeclaredConstructor().newInstance();
 			this.solver = factory.createSolver(grid);
+			this.solver.setBudget(budget);
+			this.solver.setPool(pool);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -58,19 +83,52 @@ public class SolverManager {
 			// use dynamic class loading to choose the correct factory for the solver
 			SolverFactory factory = Class.forName(solver.getClass().getPackage().getName() + "." + solver.getClass().getSimpleName() + "Factory").asSubclass(SolverFactory.class).getDeclaredConstructor().newInstance();
 			this.solver = factory.createSolver(grid);
+			this.solver.setBudget(budget);
+			this.solver.setPool(pool);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
 	}
+	
+	/**
+	 * Method used to change the limits of the work of the Solver in each step.
+	 * @param budget The new limits.
+	 */
+	public void setBudget(SolverBudget budget) {
+		this.budget = budget;
+		this.solver.setBudget(budget);
+	}
+
+	/**
+	 * Method used to change the pool where the Solver splits the work of each step.
+	 * @param pool The new pool, null to work only on the calling thread.
+	 */
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+		this.solver.setPool(pool);
+	}
+	
+	/**
+	 * Method used to create the default pool, according to the PARALLELISM_PROPERTY.
+	 * @return The pool, null if the parallelism is 1.
+	 */
+	private static ForkJoinPool createDefaultPool() {
+		Integer parallelism = Integer.getInteger(PARALLELISM_PROPERTY);
+		if (parallelism == null) {
+			return ForkJoinPool.commonPool();
+		}
+		return parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+	}
 
 	/**
 	 * Method used to populate the grid and to uncover the first top-left Square.
 	 * 
 	 */
 	private void firstStep() {
-		Location location = new Location(0, 0);
+		Location location = grid.getLocation(0, 0);
 		grid.populateSafeGrid(location);
-		DroolsUtils.getInstance().insertAndFire("UNCOVER", location);
+		this.lastChangedSquares = grid.insertAllAndFire("UNCOVER", Collections.singletonList(location));
+		solver.update(lastChangedSquares);
 	}
 	
 	/**
@@ -108,14 +166,15 @@ public class SolverManager {
 				isLastStepRandom = true;
 			}
 		}
+		if (!step.isStepExact() && shouldRecordStatistics) {
+			solverStatistics.increaseNumberOfBudgetHits();
+		}
 
-		// flag and uncover any square found by the solver in the last step
-		step.getLocationsToFlag().forEach(f -> {
-			DroolsUtils.getInstance().insertAndFire("FLAG", f);
-		});
-		step.getLocationsToUncover().forEach(f -> {
-			DroolsUtils.getInstance().insertAndFire("UNCOVER", f);
-		});
+		// flag and uncover any square found by the solver in the last step, firing
+		// each agenda group once: the Locations would match the rules of both groups
+		this.lastChangedSquares = grid.insertAllAndFire("FLAG", step.getLocationsToFlag());
+		this.lastChangedSquares.addAll(grid.insertAllAndFire("UNCOVER", step.getLocationsToUncover()));
+		solver.update(lastChangedSquares);
 	}
 	
 	/**
@@ -161,15 +220,17 @@ public class SolverManager {
 	 * @return The location corresponding to a covered corner Square, null if not available.
 	 */
 	private Location getCornerLocation() {
+		int lastRow = grid.getConfig().getN_ROWS() - 1;
+		int lastColumn = grid.getConfig().getN_COLUMNS() - 1;
 		Location location = null;
-		if (grid.getSquareAt(new Location(0, 0)).getState() == SquareState.COVERED) {
-			location = new Location(0, 0);
-		} else if (grid.getSquareAt(new Location(0, grid.getConfig().getN_COLUMNS()-1)).getState() == SquareState.COVERED) {
-			location = new Location(0, grid.getConfig().getN_COLUMNS()-1);
-		} else if (grid.getSquareAt(new Location(grid.getConfig().getN_ROWS()-1, grid.getConfig().getN_COLUMNS()-1)).getState() == SquareState.COVERED) {
-			location = new Location(grid.getConfig().getN_ROWS()-1, grid.getConfig().getN_COLUMNS()-1);
-		} else if (grid.getSquareAt(new Location(grid.getConfig().getN_ROWS()-1, 0)).getState() == SquareState.COVERED) {
-			location = new Location(grid.getConfig().getN_ROWS()-1, 0);
+		if (grid.getState(grid.getIndex(grid.getLocation(0, 0))) == SquareState.COVERED) {
+			location = grid.getLocation(0, 0);
+		} else if (grid.getState(grid.getIndex(grid.getLocation(0, lastColumn))) == SquareState.COVERED) {
+			location = grid.getLocation(0, lastColumn);
+		} else if (grid.getState(grid.getIndex(grid.getLocation(lastRow, lastColumn))) == SquareState.COVERED) {
+			location = grid.getLocation(lastRow, lastColumn);
+		} else if (grid.getState(grid.getIndex(grid.getLocation(lastRow, 0))) == SquareState.COVERED) {
+			location = grid.getLocation(lastRow, 0);
 		}
 
 		return location;
@@ -183,8 +244,9 @@ public class SolverManager {
 	private Location getRandomLocation() {
 		Location location;
 		do {
-			location = grid.getRandomPoint();
-		} while(grid.getSquareAt(location).getState() != SquareState.COVERED);
+			location = grid.getLocation(grid.getSolverRandom().nextInt(grid.getConfig().getN_ROWS()),
+					grid.getSolverRandom().nextInt(grid.getConfig().getN_COLUMNS()));
+		} while(grid.getState(grid.getIndex(location)) != SquareState.COVERED);
 
 		return location;
 	}
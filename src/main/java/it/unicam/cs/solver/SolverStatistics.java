@@ -28,6 +28,8 @@ public class SolverStatistics {
 	
 	private int numberOfRandomDecisionsLeadingToLose = 0;
 	
+	private int numberOfBudgetHits = 0;
+	
 	private double percentageOfLoseCausedByRandomDecisions = 0;
 	
 	private double totalElapsedTime = 0;
@@ -56,6 +58,10 @@ public class SolverStatistics {
 		this.numberOfRandomDecisionsLeadingToLose += 1;
 	}
 	
+	public void increaseNumberOfBudgetHits() {
+		this.numberOfBudgetHits += 1;
+	}
+	
 	public void setElapsedTime(double elapsedTime) {
 		this.totalElapsedTime = elapsedTime;
 	}
@@ -83,7 +89,8 @@ public class SolverStatistics {
 		s += System.lineSeparator();
 		s += "Total random decisions: " + this.totalNumberOfRandomDecisions + System.lineSeparator();
 		s += String.format("Average random decisions: %.2f", this.averageNumberOfRandomDecisions) + System.lineSeparator();
-		s += String.format("Loss by random decisions: %d (%.2f%%)", this.numberOfRandomDecisionsLeadingToLose, this.percentageOfLoseCausedByRandomDecisions);
+		s += String.format("Loss by random decisions: %d (%.2f%%)", this.numberOfRandomDecisionsLeadingToLose, this.percentageOfLoseCausedByRandomDecisions) + System.lineSeparator();
+		s += "Steps over budget: " + this.numberOfBudgetHits;
 		return s;
 	}
 }
@@ -1,37 +1,230 @@
 package it.unicam.cs.utils;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.drools.core.util.DroolsStreamUtils;
+import org.kie.api.KieBase;
 import org.kie.api.KieServices;
+import org.kie.api.event.rule.AgendaEventListener;
 import org.kie.api.event.rule.ObjectDeletedEvent;
 import org.kie.api.event.rule.ObjectInsertedEvent;
 import org.kie.api.event.rule.ObjectUpdatedEvent;
 import org.kie.api.event.rule.RuleRuntimeEventListener;
-import org.kie.api.runtime.KieContainer;
 import org.kie.api.runtime.KieSession;
 
+import it.unicam.cs.enumeration.FactEquality;
+import it.unicam.cs.model.Grid;
+import it.unicam.cs.model.Location;
+import it.unicam.cs.model.Square;
 import lombok.Getter;
+import lombok.Setter;
 
 /**
- * Singleton Class used to manage the Drools session and interact with the Working Memory and Rules.
+ * Class used to manage the Drools session of a game and interact with its
+ * Working Memory and Rules. Every game owns its own instance, so games can be
+ * played on different threads; the KieBases and the pool of idle sessions are
+ * shared by all the instances.
  *
  */
 public class DroolsUtils {
 	
-	private static DroolsUtils instance = null;
+	/** Default number of idle sessions kept ready in the pool **/
+	public static final int DEFAULT_POOL_SIZE = 2;
+	/** System property naming the CSV file where to profile the rules of every game **/
+	public static final String PROFILE_PROPERTY = "minesweeper.profile";
+	/** System property naming the file where to record the sessions of every game **/
+	public static final String RECORD_PROPERTY = "minesweeper.record";
+	/** System property naming the FactEquality of the games (equality if not given) **/
+	public static final String EQUALITY_PROPERTY = "minesweeper.equality";
+
+	/** FactEquality of the instances created without specifying one **/
+	@Getter
+	private static final FactEquality defaultEquality = FactEquality
+			.valueOf(System.getProperty(EQUALITY_PROPERTY, FactEquality.EQUALITY.name()).toUpperCase());
+	/** KieBases containing the compiled rules, loaded by the first instance using them **/
+	private static final Map<FactEquality, KieBase> kBases = new EnumMap<FactEquality, KieBase>(FactEquality.class);
+	/** KieBases loaded already compiled **/
+	private static final Set<FactEquality> precompiled = EnumSet.noneOf(FactEquality.class);
+	/** Milliseconds spent to obtain the KieBases **/
+	private static final Map<FactEquality, Long> startupTimes = new EnumMap<FactEquality, Long>(FactEquality.class);
+	/** Idle sessions of the default FactEquality, created ahead of time and never used **/
+	private static final Deque<KieSession> pool = new ArrayDeque<KieSession>();
+	/** Number of idle sessions the pool tries to keep ready **/
+	private static int poolSize = DEFAULT_POOL_SIZE;
+	/** Number of sessions being created for the pool **/
+	private static int pendingSessions;
+	/** Thread creating the sessions of the pool **/
+	private static final ExecutorService refiller = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "drools-session-pool");
+		thread.setDaemon(true);
+		return thread;
+	});
+	/** Profiler shared by all the games, if requested with the PROFILE_PROPERTY **/
+	@Getter
+	private static final RuleProfiler defaultProfiler = System.getProperty(PROFILE_PROPERTY) != null
+			? new RuleProfiler(Paths.get(System.getProperty(PROFILE_PROPERTY)))
+			: null;
+	/** Recorder shared by all the games, if requested with the RECORD_PROPERTY **/
+	private static final SessionRecorder defaultRecorder = System.getProperty(RECORD_PROPERTY) != null
+			? new SessionRecorder(Paths.get(System.getProperty(RECORD_PROPERTY)))
+			: null;
 
-	private KieServices ks;
-	private KieContainer kContainer;
+	/** FactEquality of the session of the game **/
 	@Getter
+	private final FactEquality equality;
+	/** Session of the game, acquired at its first use **/
 	private KieSession kSession;
+	/** Squares updated by the rules during the current batch, null outside a batch **/
+	private Set<Square> changedSquares;
+	/** Listener registered on the session of the game **/
+	private final RuleRuntimeEventListener listener = createListener();
+	/** Profiler registered on the session of the game, null to not profile it **/
+	@Getter
+	private RuleProfiler profiler = defaultProfiler;
+	/** Profile of the session of the game, null if not profiled **/
+	private SessionProfile profile;
+	/** Recorder of the game, null to not record it **/
+	@Getter
+	@Setter
+	private SessionRecorder recorder = defaultRecorder;
+	/** Recording of the current game, null if not recorded **/
+	private GameRecording recording;
+
+	public DroolsUtils() {
+		this(defaultEquality);
+	}
+
+	public DroolsUtils(FactEquality equality) {
+		this.equality = equality;
+	}
+
+	/**
+	 * Method to obtain the KieBase of a FactEquality shared by all the games,
+	 * loading it the first time and reporting how long it took.
+	 * 
+	 * @param equality The FactEquality of the KieBase.
+	 * @return The KieBase.
+	 */
+	private static synchronized KieBase getKieBase(FactEquality equality) {
+		KieBase kBase = kBases.get(equality);
+		if (kBase == null) {
+			long startTime = System.currentTimeMillis();
+			kBase = loadPrecompiledKieBase(equality.getKBaseName());
+			if (kBase != null) {
+				precompiled.add(equality);
+			} else {
+				// compile the rules found in the classpath
+				kBase = KieServices.Factory.get().getKieClasspathContainer().getKieBase(equality.getKBaseName());
+			}
+			kBases.put(equality, kBase);
+			startupTimes.put(equality, System.currentTimeMillis() - startTime);
+			// reported once, so that batch runs show whether the build-time KieBase was used
+			System.out.println("KieBase '" + equality.getKBaseName() + "' "
+					+ (precompiled.contains(equality) ? "loaded precompiled" : "compiled from the classpath") + " in "
+					+ startupTimes.get(equality) + " ms");
+		}
+		return kBase;
+	}
+
+	/**
+	 * Method to load a KieBase serialized at build time by the KieBaseCompiler.
+	 * 
+	 * @param kBaseName The name of the KieBase declared in the kmodule.
+	 * @return The KieBase, or null if it is not available.
+	 */
+	private static KieBase loadPrecompiledKieBase(String kBaseName) {
+		InputStream resource = DroolsUtils.class.getClassLoader().getResourceAsStream(KieBaseCompiler.getKieBaseResource(kBaseName));
+		if (resource == null) {
+			return null;
+		}
+		try (InputStream inputStream = new BufferedInputStream(resource)) {
+			return (KieBase) DroolsStreamUtils.streamIn(inputStream, DroolsUtils.class.getClassLoader());
+		} catch (IOException | ClassNotFoundException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Method to know whether the KieBase of the default FactEquality was loaded
+	 * already compiled.
+	 * 
+	 * @return True if the KieBase was serialized at build time, false otherwise.
+	 */
+	public static boolean isPrecompiled() {
+		return isPrecompiled(defaultEquality);
+	}
+
+	/**
+	 * Method to know whether the KieBase of a FactEquality was loaded already
+	 * compiled.
+	 * 
+	 * @param equality The FactEquality of the KieBase.
+	 * @return True if the KieBase was serialized at build time, false otherwise.
+	 */
+	public static synchronized boolean isPrecompiled(FactEquality equality) {
+		getKieBase(equality);
+		return precompiled.contains(equality);
+	}
+
+	/**
+	 * Method to obtain the milliseconds spent to obtain the KieBase of the default
+	 * FactEquality.
+	 * 
+	 * @return The startup time.
+	 */
+	public static long getStartupTime() {
+		return getStartupTime(defaultEquality);
+	}
+
+	/**
+	 * Method to obtain the milliseconds spent to obtain the KieBase of a
+	 * FactEquality.
+	 * 
+	 * @param equality The FactEquality of the KieBase.
+	 * @return The startup time.
+	 */
+	public static synchronized long getStartupTime(FactEquality equality) {
+		getKieBase(equality);
+		return startupTimes.get(equality);
+	}
 
 	/**
 	 * Method to create a new Drools session
+	 * 
+	 * @param equality The FactEquality of the session.
+	 * @return The new session.
+	 */
+	private static KieSession createNewSession(FactEquality equality) {
+		return getKieBase(equality).newKieSession();
+	}
+
+	/**
+	 * Method to create the listener registered on the session of the game.
+	 * 
+	 * @return The listener.
 	 */
-	private void createNewSession() {
-		this.kSession = kContainer.newKieSession("ksession-rules");
-		this.kSession.addEventListener(new RuleRuntimeEventListener() {
+	private RuleRuntimeEventListener createListener() {
+		return new RuleRuntimeEventListener() {
 
 			public void objectUpdated(ObjectUpdatedEvent arg0) {
 				// System.out.println("*****Object Updated*****\n" + arg0.getObject().toString());
+				if (changedSquares != null && arg0.getObject() instanceof Square) {
+					changedSquares.add((Square) arg0.getObject());
+				}
 			}
 
 			public void objectInserted(ObjectInsertedEvent arg0) {
@@ -41,32 +234,243 @@ public class DroolsUtils {
 			public void objectDeleted(ObjectDeletedEvent arg0) {
 				// System.out.println("*****Object Retracted*****\n" + arg0.getOldObject().toString());
 			}
-		});
+		};
 	}
 
-	private DroolsUtils() {
-		try {
-			this.ks = KieServices.Factory.get();
-			this.kContainer = ks.getKieClasspathContainer();
-			this.createNewSession();
-		} catch (Exception e) {
-			e.printStackTrace();
+	/**
+	 * Method to obtain a session ready to be used for a new game, taking it from
+	 * the pool if possible. The pool is then refilled in background.
+	 * 
+	 * @return The session.
+	 */
+	public static KieSession acquireSession() {
+		return acquireSession(defaultEquality);
+	}
+
+	/**
+	 * Method to obtain a session of a certain FactEquality ready to be used for a
+	 * new game. Only the sessions of the default FactEquality come from the pool.
+	 * 
+	 * @param equality The FactEquality of the session.
+	 * @return The session.
+	 */
+	public static KieSession acquireSession(FactEquality equality) {
+		if (equality != defaultEquality) {
+			return createNewSession(equality);
+		}
+		KieSession session;
+		synchronized (pool) {
+			session = pool.poll();
+		}
+		refillPool();
+		return session != null ? session : createNewSession(equality);
+	}
+
+	/**
+	 * Method to give back a session no longer used, disposing it.
+	 * 
+	 * @param session The session to release.
+	 */
+	public static void releaseSession(KieSession session) {
+		session.dispose();
+	}
+
+	/**
+	 * Method to create sessions ahead of time, so that the next games do not pay
+	 * their creation.
+	 * 
+	 * @param sessions The number of idle sessions the pool should contain.
+	 */
+	public static void warmUp(int sessions) {
+		synchronized (pool) {
+			poolSize = Math.max(poolSize, sessions);
+			while (pool.size() < sessions) {
+				pool.push(createNewSession(defaultEquality));
+			}
+		}
+	}
+
+	/**
+	 * Method to obtain the number of idle sessions the pool tries to keep ready.
+	 * 
+	 * @return The size of the pool.
+	 */
+	public static int getPoolSize() {
+		synchronized (pool) {
+			return poolSize;
+		}
+	}
+
+	/**
+	 * Method to change the number of idle sessions the pool tries to keep ready,
+	 * disposing the ones exceeding it.
+	 * 
+	 * @param size The number of idle sessions, 0 to disable the pool.
+	 */
+	public static void setPoolSize(int size) {
+		synchronized (pool) {
+			poolSize = size;
+			while (pool.size() > poolSize) {
+				pool.pop().dispose();
+			}
 		}
+		refillPool();
 	}
 
-	public static DroolsUtils getInstance() {
-		if (instance == null)
-			instance = new DroolsUtils();
+	/**
+	 * Method to schedule the creation of the sessions missing from the pool on
+	 * the background thread.
+	 */
+	private static void refillPool() {
+		synchronized (pool) {
+			while (pool.size() + pendingSessions < poolSize) {
+				pendingSessions++;
+				refiller.execute(() -> {
+					KieSession session = createNewSession(defaultEquality);
+					synchronized (pool) {
+						pendingSessions--;
+						if (pool.size() < poolSize) {
+							pool.push(session);
+							return;
+						}
+					}
+					session.dispose();
+				});
+			}
+		}
+	}
 
-		return instance;
+	/**
+	 * Method to obtain the session of the game, acquiring it at its first use.
+	 * 
+	 * @return The session.
+	 */
+	public synchronized KieSession getKSession() {
+		if (this.kSession == null) {
+			this.kSession = acquireSession(equality);
+			this.kSession.addEventListener(listener);
+			startProfile();
+		}
+		return this.kSession;
+	}
+
+	/**
+	 * Method to register a new profile of the profiler, if any, on the session.
+	 */
+	private void startProfile() {
+		if (profiler != null) {
+			this.profile = profiler.startSession();
+			this.kSession.addEventListener((AgendaEventListener) profile);
+			this.kSession.addEventListener((RuleRuntimeEventListener) profile);
+		}
 	}
 
 	/**
-	 * Method to clear the working memory and create new Session.
+	 * Method to remove the profile, if any, from the session, adding its
+	 * statistics to the ones of its profiler.
 	 */
-	public void clear() {
-		this.kSession.dispose();
-		this.createNewSession();
+	private void endProfile() {
+		if (this.profile != null) {
+			this.kSession.removeEventListener((AgendaEventListener) profile);
+			this.kSession.removeEventListener((RuleRuntimeEventListener) profile);
+			this.profiler.endSession(profile);
+			this.profile = null;
+		}
+	}
+
+	/**
+	 * Method to change the profiler of the game, moving its listeners on the
+	 * current session.
+	 * 
+	 * @param profiler The new profiler, null to stop profiling.
+	 */
+	public synchronized void setProfiler(RuleProfiler profiler) {
+		if (this.kSession != null) {
+			endProfile();
+		}
+		this.profiler = profiler;
+		if (this.kSession != null) {
+			startProfile();
+		}
+	}
+
+	/**
+	 * Method to start recording a game on its session, if the instance has a
+	 * recorder. The recorder must be set before the game starts.
+	 * 
+	 * @param grid The grid of the game, already populated.
+	 */
+	public synchronized void startRecording(Grid grid) {
+		// the grid was populated again, so the previous game is over
+		endRecording();
+		if (recorder != null) {
+			this.recording = recorder.startGame(grid, equality);
+			KieSession kSession = getKSession();
+			kSession.addEventListener((AgendaEventListener) recording);
+			kSession.addEventListener((RuleRuntimeEventListener) recording);
+		}
+	}
+
+	/**
+	 * Method to end the recording of the game, if any, removing its listeners
+	 * from the session so that the next game is not recorded under its number.
+	 */
+	private void endRecording() {
+		if (this.recording != null) {
+			this.kSession.removeEventListener((AgendaEventListener) recording);
+			this.kSession.removeEventListener((RuleRuntimeEventListener) recording);
+			this.recording.recordEnd();
+			this.recording = null;
+		}
+	}
+
+	/**
+	 * Method to record a move of the game, if recorded, before it is made.
+	 * 
+	 * @param agendaGroup The agendGroup of the move.
+	 * @param locations   The locations of the move.
+	 */
+	public synchronized void recordMove(String agendaGroup, Collection<Location> locations) {
+		if (recording != null) {
+			recording.recordMove(agendaGroup, locations);
+		}
+	}
+
+	/**
+	 * Method to signal the profile, if any, that a batch starts.
+	 * 
+	 * @param agendaGroup The agendGroup of the batch.
+	 */
+	private void beginBatch(String agendaGroup) {
+		if (profile != null) {
+			profile.beginBatch(agendaGroup);
+		}
+	}
+
+	/**
+	 * Method to signal the profile, if any, that the batch ended, and to append
+	 * its records to the log, if the game is recorded.
+	 */
+	private void endBatch() {
+		if (profile != null) {
+			profile.endBatch();
+		}
+		if (recording != null) {
+			recording.flush();
+		}
+	}
+
+	/**
+	 * Method to release the session of the game. A new session is acquired if
+	 * the instance is used again, with an empty working memory.
+	 */
+	public synchronized void dispose() {
+		endRecording();
+		if (this.kSession != null) {
+			endProfile();
+			releaseSession(this.kSession);
+			this.kSession = null;
+		}
 	}
 
 	/**
@@ -77,9 +481,59 @@ public class DroolsUtils {
 	 * @param object      The object to insert into the working memory.
 	 */
 	public synchronized void insertAndFire(String agendaGroup, Object object) {
-		this.kSession.getAgenda().getAgendaGroup(agendaGroup).setFocus();
-		this.kSession.insert(object);
-		this.kSession.fireAllRules();
+		KieSession kSession = getKSession();
+		beginBatch(agendaGroup);
+		try {
+			kSession.getAgenda().getAgendaGroup(agendaGroup).setFocus();
+			kSession.insert(object);
+			kSession.fireAllRules();
+		} finally {
+			endBatch();
+		}
+	}
+
+	/**
+	 * Thread-safe method to insert many Objects into the working memory and fire
+	 * the rules corresponding to their agendaGroup only once.
+	 * 
+	 * @param agendaGroup The agendGroup to use to fire the rules.
+	 * @param objects     The objects to insert into the working memory.
+	 * @return The Squares changed by the rules, in the order of their first change.
+	 */
+	public synchronized Set<Square> insertAllAndFire(String agendaGroup, Collection<?> objects) {
+		Set<Square> squares = new LinkedHashSet<Square>();
+		if (objects.isEmpty()) {
+			return squares;
+		}
+		KieSession kSession = getKSession();
+		this.changedSquares = squares;
+		beginBatch(agendaGroup);
+		try {
+			kSession.getAgenda().getAgendaGroup(agendaGroup).setFocus();
+			objects.forEach(o -> kSession.insert(o));
+			kSession.fireAllRules();
+		} finally {
+			this.changedSquares = null;
+			endBatch();
+		}
+		return squares;
+	}
+
+	/**
+	 * Thread-safe method to notify the working memory that some of its Objects
+	 * were changed outside the rules, without firing any rule.
+	 *
+	 * @param agendaGroup The agendGroup whose rules the changes replace.
+	 * @param objects     The changed objects, already in the working memory.
+	 */
+	public synchronized void updateAll(String agendaGroup, Collection<?> objects) {
+		KieSession kSession = getKSession();
+		beginBatch(agendaGroup);
+		try {
+			objects.forEach(o -> kSession.update(kSession.getFactHandle(o), o));
+		} finally {
+			endBatch();
+		}
 	}
 
 	/**
@@ -88,7 +542,13 @@ public class DroolsUtils {
 	 * @param agendaGroup The agendGroup to use to fire the rules.
 	 */
 	public synchronized void fireGroup(String agendaGroup) {
-		this.kSession.getAgenda().getAgendaGroup(agendaGroup).setFocus();
-		this.kSession.fireAllRules();
+		KieSession kSession = getKSession();
+		beginBatch(agendaGroup);
+		try {
+			kSession.getAgenda().getAgendaGroup(agendaGroup).setFocus();
+			kSession.fireAllRules();
+		} finally {
+			endBatch();
+		}
 	}
 }
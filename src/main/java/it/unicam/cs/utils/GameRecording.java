@@ -0,0 +1,172 @@
+package it.unicam.cs.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.kie.api.event.rule.AfterMatchFiredEvent;
+import org.kie.api.event.rule.DefaultAgendaEventListener;
+import org.kie.api.event.rule.ObjectDeletedEvent;
+import org.kie.api.event.rule.ObjectInsertedEvent;
+import org.kie.api.event.rule.ObjectUpdatedEvent;
+import org.kie.api.event.rule.RuleRuntimeEventListener;
+
+import it.unicam.cs.enumeration.FactEquality;
+import it.unicam.cs.model.Grid;
+import it.unicam.cs.model.Location;
+import it.unicam.cs.model.Square;
+import lombok.Getter;
+
+/**
+ * Class to represent the recording of a single game: registered on the session
+ * of the game, it buffers the records of the rules fired and of the Squares
+ * changed, which are appended to the log of its SessionRecorder at the end of
+ * every batch.
+ *
+ */
+public class GameRecording extends DefaultAgendaEventListener implements RuleRuntimeEventListener {
+	/** Recorder writing the log **/
+	private final SessionRecorder recorder;
+	/** Number of the game in the log **/
+	@Getter
+	private final int gameId;
+	/** Records not yet appended to the log **/
+	private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+	private final DataOutputStream records = new DataOutputStream(buffer);
+	/** Numbers of the symbols already used by the game, by name **/
+	private final Map<String, Integer> symbols = new HashMap<String, Integer>();
+
+	GameRecording(SessionRecorder recorder, int gameId) {
+		this.recorder = recorder;
+		this.gameId = gameId;
+	}
+
+	/**
+	 * Method to record the start of the game, appending it to the log.
+	 *
+	 * @param grid     The grid of the game, already populated.
+	 * @param equality The FactEquality of the session of the game.
+	 */
+	void recordGame(Grid grid, FactEquality equality) {
+		try {
+			startRecord(SessionRecorder.GAME);
+			SessionRecorder.writeVarInt(records, grid.getConfig().getN_ROWS());
+			SessionRecorder.writeVarInt(records, grid.getConfig().getN_COLUMNS());
+			SessionRecorder.writeVarInt(records, grid.getConfig().getN_BOMBS());
+			records.writeLong(grid.getSeed());
+			records.writeLong(grid.getBoardSeed());
+			SessionRecorder.writeVarInt(records, grid.getFirstLocation().getRow());
+			SessionRecorder.writeVarInt(records, grid.getFirstLocation().getColumn());
+			records.writeByte(grid.getSafeArea().ordinal());
+			records.writeByte(equality.ordinal());
+			records.writeBoolean(grid.isFloodFill());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		flush();
+	}
+
+	/**
+	 * Method to record a move, before it is made.
+	 *
+	 * @param agendaGroup The agendGroup of the move.
+	 * @param locations   The locations of the move.
+	 */
+	public void recordMove(String agendaGroup, Collection<Location> locations) {
+		try {
+			startRecord(SessionRecorder.MOVE);
+			SessionRecorder.writeVarInt(records, getSymbol(agendaGroup));
+			SessionRecorder.writeVarInt(records, locations.size());
+			for (Location location : locations) {
+				SessionRecorder.writeVarInt(records, location.getRow());
+				SessionRecorder.writeVarInt(records, location.getColumn());
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Method to record the end of the game, appending the buffered records to the
+	 * log and flushing it.
+	 */
+	public void recordEnd() {
+		try {
+			startRecord(SessionRecorder.END);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		flush();
+		recorder.flush();
+	}
+
+	/**
+	 * Method to append the buffered records to the log.
+	 */
+	public void flush() {
+		if (buffer.size() > 0) {
+			recorder.write(buffer);
+			buffer.reset();
+		}
+	}
+
+	@Override
+	public void afterMatchFired(AfterMatchFiredEvent event) {
+		try {
+			startRecord(SessionRecorder.FIRE);
+			SessionRecorder.writeVarInt(records, getSymbol(event.getMatch().getRule().getName()));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void objectUpdated(ObjectUpdatedEvent event) {
+		if (event.getObject() instanceof Square) {
+			Square square = (Square) event.getObject();
+			try {
+				startRecord(SessionRecorder.CHANGE);
+				SessionRecorder.writeVarInt(records, square.getIndex());
+				records.writeByte(square.getState().ordinal());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	@Override
+	public void objectInserted(ObjectInsertedEvent event) {
+		// the Locations inserted by the rules follow from the moves
+	}
+
+	@Override
+	public void objectDeleted(ObjectDeletedEvent event) {
+		// the Locations deleted by the rules follow from the moves
+	}
+
+	/**
+	 * Method to start a record of the game.
+	 *
+	 * @param type The type of the record.
+	 * @throws IOException If the record cannot be written.
+	 */
+	private void startRecord(byte type) throws IOException {
+		records.writeByte(type);
+		SessionRecorder.writeVarInt(records, gameId);
+	}
+
+	/**
+	 * Method to obtain the number of a symbol, asking the recorder only the first
+	 * time the game uses it.
+	 *
+	 * @param name The name of the rule or agenda group.
+	 * @return The number of the symbol.
+	 */
+	private int getSymbol(String name) {
+		return symbols.computeIfAbsent(name, recorder::getSymbol);
+	}
+}
@@ -0,0 +1,55 @@
+package it.unicam.cs.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.drools.core.util.DroolsStreamUtils;
+import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.kie.api.runtime.KieContainer;
+
+import it.unicam.cs.enumeration.FactEquality;
+
+/**
+ * Class used at build time to compile the rules of the classpath and serialize
+ * the resulting KieBases, one for each FactEquality, next to the compiled
+ * classes, so that the application can load them at startup without invoking
+ * the rule compiler.
+ *
+ */
+public class KieBaseCompiler {
+
+	/**
+	 * Method to obtain the classpath location of a serialized KieBase.
+	 *
+	 * @param kBaseName The name of the KieBase declared in the kmodule.
+	 * @return The location of the serialized KieBase.
+	 */
+	public static String getKieBaseResource(String kBaseName) {
+		return "it/unicam/cs/rules/" + kBaseName + ".kbase";
+	}
+
+	/**
+	 * Method to compile and serialize the KieBases.
+	 *
+	 * @param args The output directory (target/classes if not given).
+	 * @throws IOException If a KieBase cannot be written.
+	 */
+	public static void main(String[] args) throws IOException {
+		KieContainer kContainer = KieServices.Factory.get().getKieClasspathContainer();
+		for (FactEquality equality : FactEquality.values()) {
+			File output = new File(args.length > 0 ? args[0] : "target/classes", getKieBaseResource(equality.getKBaseName()));
+			long startTime = System.currentTimeMillis();
+			KieBase kBase = kContainer.getKieBase(equality.getKBaseName());
+			output.getParentFile().mkdirs();
+			try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(output))) {
+				DroolsStreamUtils.streamOut(outputStream, kBase);
+			}
+			System.out.println("KieBase '" + equality.getKBaseName() + "' compiled into " + output + " in "
+					+ (System.currentTimeMillis() - startTime) + " ms");
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package it.unicam.cs.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import lombok.Getter;
+
+/**
+ * Class used to measure what the rules do during the games: for every session
+ * it provides a SessionProfile, which counts the matches created, cancelled and
+ * fired by every rule, the time spent in their consequences and the facts
+ * inserted, updated and deleted by every agenda group. The changes made outside
+ * the rules are assigned to the agenda group of the batch being executed.
+ * <p>
+ * The same profiler can be shared by the engines of many games, even on
+ * different threads: every session counts in its own profile, and the profiles
+ * are merged only when the statistics are requested.
+ *
+ */
+public class RuleProfiler {
+	/** Header of the CSV dump **/
+	public static final String CSV_HEADER = "scope,agenda_group,name,activations,cancellations,fires,execution_ms,inserts,updates,deletes";
+
+	/** Statistics of every rule of the ended sessions, by name **/
+	private final Map<String, RuleStatistics> rules = new LinkedHashMap<String, RuleStatistics>();
+	/** Statistics of every agenda group of the ended sessions, by name **/
+	private final Map<String, RuleStatistics> groups = new LinkedHashMap<String, RuleStatistics>();
+	/** Profiles of the sessions still running **/
+	private final List<SessionProfile> profiles = new ArrayList<SessionProfile>();
+	/** File where the statistics are dumped by writeCsv(), null to not dump them **/
+	@Getter
+	private final Path csvFile;
+
+	public RuleProfiler() {
+		this(null);
+	}
+
+	/**
+	 * Constructor to create a profiler dumping its statistics as CSV when
+	 * writeCsv() is called and when the JVM shuts down.
+	 *
+	 * @param csvFile The file to write, overwritten at every dump.
+	 */
+	public RuleProfiler(Path csvFile) {
+		this.csvFile = csvFile;
+		if (csvFile != null) {
+			Runtime.getRuntime().addShutdownHook(new Thread(this::writeCsv));
+		}
+	}
+
+	/**
+	 * Method to start profiling a session.
+	 *
+	 * @return The profile to register on the session.
+	 */
+	public synchronized SessionProfile startSession() {
+		SessionProfile profile = new SessionProfile();
+		profiles.add(profile);
+		return profile;
+	}
+
+	/**
+	 * Method to stop profiling a session, adding its statistics to the totals.
+	 *
+	 * @param profile The profile of the session, no longer registered on it.
+	 */
+	public synchronized void endSession(SessionProfile profile) {
+		if (profiles.remove(profile)) {
+			profile.mergeInto(rules, groups);
+		}
+	}
+
+	/**
+	 * Method to obtain a copy of the statistics collected so far for every rule.
+	 *
+	 * @return The statistics, by rule name.
+	 */
+	public Map<String, RuleStatistics> getRuleStatistics() {
+		return getStatistics(true);
+	}
+
+	/**
+	 * Method to obtain a copy of the statistics collected so far for every agenda
+	 * group.
+	 *
+	 * @return The statistics, by agenda group name.
+	 */
+	public Map<String, RuleStatistics> getGroupStatistics() {
+		return getStatistics(false);
+	}
+
+	/**
+	 * Method to merge the statistics of the ended sessions with the ones of the
+	 * sessions still running.
+	 *
+	 * @param ofRules True to obtain the statistics of the rules, false for the
+	 *                ones of the agenda groups.
+	 * @return The merged statistics, by name.
+	 */
+	private synchronized Map<String, RuleStatistics> getStatistics(boolean ofRules) {
+		Map<String, RuleStatistics> ruleTotals = new LinkedHashMap<String, RuleStatistics>();
+		Map<String, RuleStatistics> groupTotals = new LinkedHashMap<String, RuleStatistics>();
+		SessionProfile.merge(rules, ruleTotals);
+		SessionProfile.merge(groups, groupTotals);
+		for (SessionProfile profile : profiles) {
+			profile.mergeInto(ruleTotals, groupTotals);
+		}
+		return ofRules ? ruleTotals : groupTotals;
+	}
+
+	/**
+	 * Method to forget the statistics collected so far.
+	 */
+	public synchronized void reset() {
+		rules.clear();
+		groups.clear();
+		profiles.forEach(SessionProfile::reset);
+	}
+
+	/**
+	 * Method to dump the statistics collected so far in the CSV file, if any.
+	 */
+	public synchronized void writeCsv() {
+		if (csvFile == null) {
+			return;
+		}
+		try (Writer writer = Files.newBufferedWriter(csvFile)) {
+			writeCsv(writer);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Method to write the statistics collected so far as CSV, one line for every
+	 * rule followed by one line for every agenda group.
+	 *
+	 * @param writer The writer to use.
+	 * @throws IOException If the statistics cannot be written.
+	 */
+	public void writeCsv(Writer writer) throws IOException {
+		Map<String, RuleStatistics> rules = getRuleStatistics();
+		Map<String, RuleStatistics> groups = getGroupStatistics();
+		BufferedWriter bufferedWriter = writer instanceof BufferedWriter ? (BufferedWriter) writer : new BufferedWriter(writer);
+		bufferedWriter.write(CSV_HEADER);
+		bufferedWriter.newLine();
+		writeCsvLines(bufferedWriter, "rule", rules);
+		writeCsvLines(bufferedWriter, "group", groups);
+		bufferedWriter.flush();
+	}
+
+	/**
+	 * Method to write some statistics as CSV lines.
+	 *
+	 * @param writer     The writer to use.
+	 * @param scope      The value of the scope column.
+	 * @param statistics The statistics to write.
+	 * @throws IOException If the statistics cannot be written.
+	 */
+	private static void writeCsvLines(BufferedWriter writer, String scope, Map<String, RuleStatistics> statistics)
+			throws IOException {
+		for (RuleStatistics s : statistics.values()) {
+			writer.write(String.format(Locale.ROOT, "%s,%s,\"%s\",%d,%d,%d,%.3f,%d,%d,%d", scope, s.getAgendaGroup(),
+					s.getName().replace("\"", "\"\""), s.getActivations(), s.getCancellations(), s.getFires(),
+					s.getExecutionTime() / 1e6, s.getInserts(), s.getUpdates(), s.getDeletes()));
+			writer.newLine();
+		}
+	}
+}
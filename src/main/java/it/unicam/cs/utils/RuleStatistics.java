@@ -0,0 +1,93 @@
+package it.unicam.cs.utils;
+
+import lombok.Getter;
+
+/**
+ * Class used to keep track of what a rule (or all the rules of an agenda group)
+ * did in the working memory: how many matches were created, cancelled and
+ * fired, how long the firings took and how many facts were inserted, updated
+ * and deleted.
+ *
+ */
+@Getter
+public class RuleStatistics {
+	/** Name of the rule, or of the agenda group **/
+	private final String name;
+	/** Agenda group of the rule **/
+	private final String agendaGroup;
+	/** Number of matches created **/
+	private long activations = 0;
+	/** Number of matches cancelled before firing **/
+	private long cancellations = 0;
+	/** Number of matches fired **/
+	private long fires = 0;
+	/** Nanoseconds spent executing the consequences **/
+	private long executionTime = 0;
+	/** Number of facts inserted **/
+	private long inserts = 0;
+	/** Number of facts updated **/
+	private long updates = 0;
+	/** Number of facts deleted **/
+	private long deletes = 0;
+
+	public RuleStatistics(String name, String agendaGroup) {
+		this.name = name;
+		this.agendaGroup = agendaGroup;
+	}
+
+	/**
+	 * Constructor to copy the statistics collected so far.
+	 *
+	 * @param statistics The statistics to copy.
+	 */
+	public RuleStatistics(RuleStatistics statistics) {
+		this(statistics.name, statistics.agendaGroup);
+		this.activations = statistics.activations;
+		this.cancellations = statistics.cancellations;
+		this.fires = statistics.fires;
+		this.executionTime = statistics.executionTime;
+		this.inserts = statistics.inserts;
+		this.updates = statistics.updates;
+		this.deletes = statistics.deletes;
+	}
+
+	/**
+	 * Method to add other statistics, of the same rule or agenda group, to these.
+	 *
+	 * @param statistics The statistics to add.
+	 */
+	public void add(RuleStatistics statistics) {
+		this.activations += statistics.activations;
+		this.cancellations += statistics.cancellations;
+		this.fires += statistics.fires;
+		this.executionTime += statistics.executionTime;
+		this.inserts += statistics.inserts;
+		this.updates += statistics.updates;
+		this.deletes += statistics.deletes;
+	}
+
+	public void increaseActivations() {
+		this.activations += 1;
+	}
+
+	public void increaseCancellations() {
+		this.cancellations += 1;
+	}
+
+	public void increaseFires(long executionTime) {
+		this.fires += 1;
+		this.executionTime += executionTime;
+	}
+
+	public void increaseInserts() {
+		this.inserts += 1;
+	}
+
+	public void increaseUpdates() {
+		this.updates += 1;
+	}
+
+	public void increaseDeletes() {
+		this.deletes += 1;
+	}
+}
@@ -0,0 +1,175 @@
+package it.unicam.cs.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.drools.core.definitions.rule.impl.RuleImpl;
+import org.kie.api.definition.rule.Rule;
+import org.kie.api.event.rule.AfterMatchFiredEvent;
+import org.kie.api.event.rule.BeforeMatchFiredEvent;
+import org.kie.api.event.rule.DefaultAgendaEventListener;
+import org.kie.api.event.rule.MatchCancelledEvent;
+import org.kie.api.event.rule.MatchCreatedEvent;
+import org.kie.api.event.rule.ObjectDeletedEvent;
+import org.kie.api.event.rule.ObjectInsertedEvent;
+import org.kie.api.event.rule.ObjectUpdatedEvent;
+import org.kie.api.event.rule.RuleRuntimeEventListener;
+
+/**
+ * Class to represent the profile of a single session: registered on the
+ * session, it keeps its own statistics of the rules and agenda groups, which
+ * its RuleProfiler merges with the ones of the other sessions only when asked
+ * for a snapshot. The lock of the profile is only contended by the snapshots.
+ *
+ */
+public class SessionProfile extends DefaultAgendaEventListener implements RuleRuntimeEventListener {
+	/** Statistics of every rule, by name **/
+	private final Map<String, RuleStatistics> rules = new LinkedHashMap<String, RuleStatistics>();
+	/** Statistics of every agenda group, by name **/
+	private final Map<String, RuleStatistics> groups = new LinkedHashMap<String, RuleStatistics>();
+	/** Agenda group of the batch being executed, null outside a batch **/
+	private String batchGroup;
+	/** Start of the consequence being executed **/
+	private long fireStart;
+
+	SessionProfile() {
+	}
+
+	/**
+	 * Method to signal that the session starts a batch of insertions and firings.
+	 *
+	 * @param agendaGroup The agenda group focused by the batch.
+	 */
+	public synchronized void beginBatch(String agendaGroup) {
+		batchGroup = agendaGroup;
+	}
+
+	/**
+	 * Method to signal that the session completed its batch.
+	 */
+	public synchronized void endBatch() {
+		batchGroup = null;
+	}
+
+	/**
+	 * Method to obtain the agenda group of a rule.
+	 *
+	 * @param rule The considered rule, null for the changes made outside the rules.
+	 * @return The agenda group of the rule, or the one of the current batch.
+	 */
+	private String getAgendaGroup(Rule rule) {
+		if (rule instanceof RuleImpl) {
+			return ((RuleImpl) rule).getAgendaGroup();
+		}
+		return batchGroup != null ? batchGroup : "MAIN";
+	}
+
+	/**
+	 * Method to obtain the statistics of a rule, creating them if needed.
+	 *
+	 * @param rule The considered rule.
+	 * @return The statistics of the rule.
+	 */
+	private RuleStatistics getRuleStatistics(Rule rule) {
+		return rules.computeIfAbsent(rule.getName(), name -> new RuleStatistics(name, getAgendaGroup(rule)));
+	}
+
+	/**
+	 * Method to obtain the statistics of the agenda group of a rule, creating them
+	 * if needed.
+	 *
+	 * @param rule The considered rule, null for the changes made outside the rules.
+	 * @return The statistics of the agenda group.
+	 */
+	private RuleStatistics getGroupStatistics(Rule rule) {
+		return groups.computeIfAbsent(getAgendaGroup(rule), name -> new RuleStatistics(name, name));
+	}
+
+	@Override
+	public synchronized void matchCreated(MatchCreatedEvent event) {
+		Rule rule = event.getMatch().getRule();
+		getRuleStatistics(rule).increaseActivations();
+		getGroupStatistics(rule).increaseActivations();
+	}
+
+	@Override
+	public synchronized void matchCancelled(MatchCancelledEvent event) {
+		Rule rule = event.getMatch().getRule();
+		getRuleStatistics(rule).increaseCancellations();
+		getGroupStatistics(rule).increaseCancellations();
+	}
+
+	@Override
+	public synchronized void beforeMatchFired(BeforeMatchFiredEvent event) {
+		fireStart = System.nanoTime();
+	}
+
+	@Override
+	public synchronized void afterMatchFired(AfterMatchFiredEvent event) {
+		long executionTime = System.nanoTime() - fireStart;
+		Rule rule = event.getMatch().getRule();
+		getRuleStatistics(rule).increaseFires(executionTime);
+		getGroupStatistics(rule).increaseFires(executionTime);
+	}
+
+	@Override
+	public synchronized void objectInserted(ObjectInsertedEvent event) {
+		if (event.getRule() != null) {
+			getRuleStatistics(event.getRule()).increaseInserts();
+		}
+		getGroupStatistics(event.getRule()).increaseInserts();
+	}
+
+	@Override
+	public synchronized void objectUpdated(ObjectUpdatedEvent event) {
+		if (event.getRule() != null) {
+			getRuleStatistics(event.getRule()).increaseUpdates();
+		}
+		getGroupStatistics(event.getRule()).increaseUpdates();
+	}
+
+	@Override
+	public synchronized void objectDeleted(ObjectDeletedEvent event) {
+		if (event.getRule() != null) {
+			getRuleStatistics(event.getRule()).increaseDeletes();
+		}
+		getGroupStatistics(event.getRule()).increaseDeletes();
+	}
+
+	/**
+	 * Method to add the statistics of the session to some totals.
+	 *
+	 * @param ruleTotals  The totals of every rule, by name.
+	 * @param groupTotals The totals of every agenda group, by name.
+	 */
+	synchronized void mergeInto(Map<String, RuleStatistics> ruleTotals, Map<String, RuleStatistics> groupTotals) {
+		merge(rules, ruleTotals);
+		merge(groups, groupTotals);
+	}
+
+	/**
+	 * Method to forget the statistics collected so far.
+	 */
+	synchronized void reset() {
+		rules.clear();
+		groups.clear();
+	}
+
+	/**
+	 * Method to add some statistics to some totals, copying the ones not yet in
+	 * the totals.
+	 *
+	 * @param statistics The statistics to add.
+	 * @param totals     The totals, by name.
+	 */
+	static void merge(Map<String, RuleStatistics> statistics, Map<String, RuleStatistics> totals) {
+		statistics.forEach((name, s) -> {
+			RuleStatistics total = totals.get(name);
+			if (total == null) {
+				totals.put(name, new RuleStatistics(s));
+			} else {
+				total.add(s);
+			}
+		});
+	}
+}
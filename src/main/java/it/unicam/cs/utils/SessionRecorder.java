@@ -0,0 +1,225 @@
+package it.unicam.cs.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import it.unicam.cs.enumeration.FactEquality;
+import it.unicam.cs.model.Grid;
+import lombok.Getter;
+
+/**
+ * Class used to record what happens in the sessions of the games into an
+ * append-only binary log, so that a game can be replayed later against a fresh
+ * session. The log is a sequence of records, each one starting with its type:
+ * <ul>
+ * <li>HEADER, written once every time the recorder opens the file;</li>
+ * <li>SYMBOL, naming a rule or an agenda group by a number;</li>
+ * <li>GAME, the configuration, seeds and first location of a new game;</li>
+ * <li>MOVE, the agenda group and the locations of a move;</li>
+ * <li>FIRE, a rule fired because of the last move;</li>
+ * <li>CHANGE, the new state of a Square changed by the last move;</li>
+ * <li>END, the end of a game.</li>
+ * </ul>
+ * All the numbers but the seeds are written as variable length integers, and
+ * all the records but HEADER and SYMBOL carry the number of their game.
+ * <p>
+ * The same recorder can be shared by the engines of many games, even on
+ * different threads: every game buffers its records and appends them at the
+ * end of each batch.
+ *
+ */
+public class SessionRecorder {
+	/** Bytes at the beginning of a HEADER record **/
+	public static final int MAGIC = 0x4D534C47;
+	/** Version of the format of the records **/
+	public static final int VERSION = 2;
+	/** Types of the records **/
+	public static final byte HEADER = 'H';
+	public static final byte SYMBOL = 'S';
+	public static final byte GAME = 'G';
+	public static final byte MOVE = 'M';
+	public static final byte FIRE = 'F';
+	public static final byte CHANGE = 'C';
+	public static final byte END = 'E';
+	/** Size of the buffer of the file **/
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** File where the records are appended **/
+	@Getter
+	private final Path file;
+	/** Stream of the file, opened at the first record **/
+	private DataOutputStream output;
+	/** Numbers of the symbols already written, by name **/
+	private final Map<String, Integer> symbols = new HashMap<String, Integer>();
+	/** Number of games started so far **/
+	private int games;
+
+	/**
+	 * Constructor to create a recorder appending its records to a file, which is
+	 * created if it does not exist. The records still buffered are written when
+	 * the JVM exits.
+	 *
+	 * @param file The file to write.
+	 */
+	public SessionRecorder(Path file) {
+		this.file = file;
+		Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "session-recorder"));
+	}
+
+	/**
+	 * Method to start the recording of a new game, writing its GAME record.
+	 *
+	 * @param grid     The grid of the game, already populated.
+	 * @param equality The FactEquality of the session of the game.
+	 * @return The recording of the game, to register on its session.
+	 */
+	public GameRecording startGame(Grid grid, FactEquality equality) {
+		int gameId;
+		synchronized (this) {
+			gameId = games++;
+		}
+		GameRecording recording = new GameRecording(this, gameId);
+		recording.recordGame(grid, equality);
+		return recording;
+	}
+
+	/**
+	 * Method to obtain the number of a symbol, writing its SYMBOL record the
+	 * first time.
+	 *
+	 * @param name The name of the rule or agenda group.
+	 * @return The number of the symbol.
+	 */
+	synchronized int getSymbol(String name) {
+		Integer symbol = symbols.get(name);
+		if (symbol == null) {
+			symbol = symbols.size();
+			symbols.put(name, symbol);
+			try {
+				writeSymbol(getOutput(), name, symbol);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		return symbol;
+	}
+
+	/**
+	 * Method to write a SYMBOL record.
+	 *
+	 * @param output The output to use.
+	 * @param name   The name of the rule or agenda group.
+	 * @param symbol The number of the symbol.
+	 * @throws IOException If the record cannot be written.
+	 */
+	private static void writeSymbol(DataOutputStream output, String name, int symbol) throws IOException {
+		output.writeByte(SYMBOL);
+		writeVarInt(output, symbol);
+		output.writeUTF(name);
+	}
+
+	/**
+	 * Method to append some records to the file.
+	 *
+	 * @param records The buffer containing the records.
+	 */
+	synchronized void write(ByteArrayOutputStream records) {
+		try {
+			records.writeTo(getOutput());
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Method to obtain the stream of the file, opening it and writing the HEADER
+	 * record, followed by the symbols already known, the first time.
+	 *
+	 * @return The stream of the file.
+	 * @throws IOException If the file cannot be opened.
+	 */
+	private DataOutputStream getOutput() throws IOException {
+		if (output == null) {
+			output = new DataOutputStream(new BufferedOutputStream(
+					Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND), BUFFER_SIZE));
+			output.writeByte(HEADER);
+			output.writeInt(MAGIC);
+			writeVarInt(output, VERSION);
+			for (Map.Entry<String, Integer> symbol : symbols.entrySet()) {
+				writeSymbol(output, symbol.getKey(), symbol.getValue());
+			}
+		}
+		return output;
+	}
+
+	/**
+	 * Method to write the buffered records to the file.
+	 */
+	public synchronized void flush() {
+		if (output != null) {
+			try {
+				output.flush();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Method to close the file. It is opened again, with a new HEADER record, if
+	 * other records are written.
+	 */
+	public synchronized void close() {
+		if (output != null) {
+			try {
+				output.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			output = null;
+		}
+	}
+
+	/**
+	 * Method to write a non negative integer using 7 bits for each byte, so that
+	 * small numbers take a single byte.
+	 *
+	 * @param output The output to use.
+	 * @param value  The integer to write.
+	 * @throws IOException If the integer cannot be written.
+	 */
+	public static void writeVarInt(DataOutput output, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			output.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		output.writeByte(value);
+	}
+
+	/**
+	 * Method to read an integer written by writeVarInt.
+	 *
+	 * @param input The input to use.
+	 * @return The integer read.
+	 * @throws IOException If the integer cannot be read.
+	 */
+	public static int readVarInt(DataInput input) throws IOException {
+		int value = 0;
+		for (int shift = 0;; shift += 7) {
+			int b = input.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+	}
+}
@@ -18,6 +18,7 @@ import java.awt.event.MouseMotionAdapter;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.IOException;
+import java.util.SplittableRandom;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.imageio.ImageIO;
@@ -40,16 +41,17 @@ import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
 import javax.swing.Timer;
 
+import it.unicam.cs.engine.JavaGameEngine;
 import it.unicam.cs.enumeration.Difficulty;
 import it.unicam.cs.enumeration.GameState;
 import it.unicam.cs.enumeration.SolveStrategy;
-import it.unicam.cs.enumeration.SquareState;
 import it.unicam.cs.model.Configuration;
 import it.unicam.cs.model.Grid;
 import it.unicam.cs.model.Location;
 import it.unicam.cs.solver.SolverManager;
 import it.unicam.cs.utils.DroolsUtils;
 import it.unicam.cs.utils.ImageUtils;
+import it.unicam.cs.utils.RuleProfiler;
 
 /**
  * Main Class used to manage the User Interface and its components.
@@ -57,6 +59,8 @@ import it.unicam.cs.utils.ImageUtils;
  */
 public class MainFrame extends JFrame {
 	private static final long serialVersionUID = 1L;
+	/** System property selecting the Java engine for the games of Solve N Times **/
+	public static final String JAVA_ENGINE_PROPERTY = "minesweeper.javaEngine";
 	/** Grid used for the Minesweeper game **/
 	private Grid grid = new Grid(Difficulty.BEGINNER.getConfiguration());
 	/** JPanel representing the grid **/
@@ -73,6 +77,10 @@ public class MainFrame extends JFrame {
 	private Font customFont = null;
 	/** Whether the left mouse button is pressed **/
 	private boolean leftMouseButtonPressed = false;
+	/** Whether the empty regions are uncovered by a flood fill instead of the rules **/
+	private boolean floodFill = false;
+	/** Whether the games of Solve N Times are played by the Java engine instead of Drools **/
+	private boolean javaEngine = Boolean.getBoolean(JAVA_ENGINE_PROPERTY);
 
 	public static void main(String[] args) {
 		// to make Drools work with Java >= 8
@@ -186,6 +194,27 @@ public class MainFrame extends JFrame {
 		gameMenu.add(customDifficultyGameMenuItem);
 		buttonGroup.add(customDifficultyGameMenuItem);
 
+		gameMenu.addSeparator();
+		JCheckBoxMenuItem floodFillMenuItem = new JCheckBoxMenuItem("Flood Fill Uncover", floodFill);
+		floodFillMenuItem.addActionListener(new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				floodFill = floodFillMenuItem.isSelected();
+				grid.setFloodFill(floodFill);
+			}
+		});
+		gameMenu.add(floodFillMenuItem);
+		JCheckBoxMenuItem javaEngineMenuItem = new JCheckBoxMenuItem("Java Engine for N Times", javaEngine);
+		javaEngineMenuItem.addActionListener(new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				javaEngine = javaEngineMenuItem.isSelected();
+			}
+		});
+		gameMenu.add(javaEngineMenuItem);
+
 		return gameMenu;
 	}
 
@@ -212,7 +241,7 @@ public class MainFrame extends JFrame {
 				stopTimer();
 				solverManager.solveByStep();
 				MainFrame.this.repaint();
-				fireWinLossRules();
+				revealGrid();
 			}
 		});
 		solveByStepMenuItem.setAccelerator(KeyStroke.getKeyStroke(strategy.getSingleStepKey(), KeyEvent.CTRL_MASK));
@@ -250,7 +279,7 @@ public class MainFrame extends JFrame {
 							solveTimer.stop();
 							stopTimer();
 							glassPane.deactivate();
-							fireWinLossRules();
+							revealGrid();
 							glassPane.getStopButton().removeActionListener(cancelButtonAction);
 						} else {
 							if (grid.getGameState() != GameState.ONGOING) {
@@ -260,8 +289,7 @@ public class MainFrame extends JFrame {
 							}
 							solverManager.solveByStep();
 							glassPane.getProgressBar()
-									.setValue((int) (grid.getGridAsStream()
-											.filter(s -> s.getState() == SquareState.UNCOVERED).count() * 100
+									.setValue((int) ((long) grid.getUncoveredCount() * 100
 											/ (grid.getConfig().getN_ROWS() * grid.getConfig().getN_COLUMNS()
 													- grid.getConfig().getN_BOMBS())));
 							panel.paintImmediately(panel.getVisibleRect());
@@ -307,6 +335,10 @@ public class MainFrame extends JFrame {
 						ActionListener solveSingleGrid = new ActionListener() {
 							private int n = 0;
 							private boolean solved = false;
+							// source of the seeds of the games, reproducible if the configuration has a seed
+							private SplittableRandom seeds = grid.getConfig().getSeed() != null
+									? new SplittableRandom(grid.getConfig().getSeed())
+									: new SplittableRandom();
 
 							@Override
 							public void actionPerformed(ActionEvent ae) {
@@ -319,6 +351,10 @@ public class MainFrame extends JFrame {
 									glassPane.getStopButton().removeActionListener(cancelButtonAction);
 									solverManager.getSolverStatistics().setElapsedTime((endTime - startTime) / 1000f);
 									solverManager.getSolverStatistics().consolidate();
+									RuleProfiler profiler = DroolsUtils.getDefaultProfiler();
+									if (profiler != null) {
+										profiler.writeCsv();
+									}
 									JOptionPane.showMessageDialog(panel, solverManager.getSolverStatistics(),
 											"Solver Statistics", JOptionPane.INFORMATION_MESSAGE,
 											ImageUtils.getInstance().getIcons().get("stat"));
@@ -330,7 +366,9 @@ public class MainFrame extends JFrame {
 										panel.paintImmediately(panel.getVisibleRect());
 										return;
 									}
-									Grid newGrid = new Grid(grid.getConfig());
+									Grid newGrid = javaEngine
+											? new Grid(grid.getConfig(), seeds.nextLong(), new JavaGameEngine())
+											: new Grid(grid.getConfig(), seeds.nextLong());
 									newGame(newGrid);
 									solverManager.updateSolver(newGrid);
 									solverManager.complete();
@@ -385,11 +423,7 @@ public class MainFrame extends JFrame {
 
 			@Override
 			protected void paintComponent(Graphics g) {
-				int remainingBombsCount = grid.getConfig().getN_BOMBS();
-				if (grid.isPopulated()) {
-					remainingBombsCount -= grid.getGridAsStream().filter(s -> s.getState() == SquareState.FLAGGED)
-							.count();
-				}
+				int remainingBombsCount = grid.getConfig().getN_BOMBS() - grid.getFlaggedCount();
 				setText(String.format("%03d", remainingBombsCount));
 				super.paintComponent(g);
 			}
@@ -535,7 +569,7 @@ public class MainFrame extends JFrame {
 							grid.populateSafeGrid(clickedLocation);
 							elapsedSecondsTimer.start();
 						}
-						DroolsUtils.getInstance().insertAndFire("FLAG", clickedLocation);
+						grid.insertAndFire("FLAG", clickedLocation);
 						leftMouseButtonPressed = false;
 						panel.setPressedLocation(null);
 						MainFrame.this.repaint();
@@ -577,14 +611,14 @@ public class MainFrame extends JFrame {
 					if (e.getClickCount() <= 1) {
 						// if 0 or 1 left click, activate UNCOVER rules. It must accept also 0 for it to work on Mac/Linux,
 						// since releasing a mouse in a different location than where it was pressed doesn't count as a click
-						DroolsUtils.getInstance().insertAndFire("UNCOVER", clickedLocation);
+						grid.insertAndFire("UNCOVER", clickedLocation);
 					} else if (e.getClickCount() == 2) { // if 2 left click, activate CHORD rules
-						DroolsUtils.getInstance().insertAndFire("CHORD", clickedLocation);
+						grid.insertAndFire("CHORD", clickedLocation);
 					}
 					MainFrame.this.repaint();
 					if (grid.getGameState() != GameState.ONGOING) {
 						elapsedSecondsTimer.stop();
-						fireWinLossRules();
+						revealGrid();
 					}
 				}
 			}
@@ -669,6 +703,10 @@ public class MainFrame extends JFrame {
 		if (configuration.getN_ROWS() <= 0 || configuration.getN_COLUMNS() <= 0 || configuration.getN_BOMBS() <= 0) {
 			return false;
 		}
+		// the Squares of the grid are indexed by int
+		if ((long) configuration.getN_ROWS() * configuration.getN_COLUMNS() > Integer.MAX_VALUE) {
+			return false;
+		}
 		if (configuration.getN_BOMBS() >= configuration.getN_ROWS() * configuration.getN_COLUMNS()) {
 			return false;
 		}
@@ -696,11 +734,15 @@ public class MainFrame extends JFrame {
 	 * @param grid The grid used for the game.
 	 */
 	private void newGame(Grid grid) {
-		DroolsUtils.getInstance().clear();
+		if (this.grid != null && this.grid != grid) {
+			// the previous game is over, release its session
+			this.grid.dispose();
+		}
 		if (elapsedSecondsTimer != null) {
 			elapsedSecondsTimer.stop();
 		}
 		this.elapsedSeconds = 0;
+		grid.setFloodFill(floodFill);
 		this.grid = grid;
 		this.panel.setPreferredSize(determinePreferredDimension());
 		this.pack();
@@ -718,11 +760,11 @@ public class MainFrame extends JFrame {
 	}
 
 	/**
-	 * Method to fire the corresponding rules in case of victory or defeat.
+	 * Method to reveal the grid in case of victory or defeat, repainting it once.
 	 */
-	private void fireWinLossRules() {
+	private void revealGrid() {
 		GameState gameState = grid.getGameState();
-		DroolsUtils.getInstance().fireGroup(gameState.name());
+		grid.reveal();
 		this.repaint();
 		if (gameState == GameState.LOSS) {
 			JOptionPane.showMessageDialog(panel, "Bomb Uncovered, You Lose!", "Message", 1,
@@ -6,6 +6,7 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.util.HashMap;
@@ -93,7 +94,9 @@ public class MainPanel extends JPanel {
 		if (point.x < 0 || point.y < 0) {
 			return new Location(-1, -1);
 		}
-		return new Location((int) (point.y / squareHeight), (int) (point.x / squareWidth));
+		Location location = new Location((int) (point.y / squareHeight), (int) (point.x / squareWidth));
+		// use the canonical instance when the location is inside the grid
+		return grid.isLocationInsideGrid(location) ? grid.getLocation(location.getRow(), location.getColumn()) : location;
 	}
 	
 	@Override
@@ -106,22 +109,25 @@ public class MainPanel extends JPanel {
 		}
 		g.setColor(Color.LIGHT_GRAY);
 		g.fillRect(0, 0, getWidth(), getHeight());
-		// draw the right Square Images if the grid is populated
-		if (grid.isPopulated()) {
-			grid.getGridAsStream().forEach(s -> {
-				String string = ImageUtils.getInstance().getSquareImage(s);
-				g.drawImage(images.get(string), (int)(squareWidth*s.getLocation().getColumn()), (int)(squareHeight*s.getLocation().getRow()), null);
-			});
-		} else { // otherwise draw all covered images
-			Image coveredImage = images.get("covered");
-			for (int r = 0; r < grid.getConfig().getN_ROWS(); r++) {
-				for (int c = 0; c < grid.getConfig().getN_COLUMNS(); c++) {
-					g.drawImage(coveredImage, (int)(squareWidth*c), (int)(squareHeight*r), null);
+		// draw only the Squares inside the area to repaint
+		Rectangle clip = g.getClipBounds() != null ? g.getClipBounds() : new Rectangle(0, 0, getWidth(), getHeight());
+		int firstRow = Math.max(0, (int) (clip.y / squareHeight));
+		int lastRow = Math.min(grid.getConfig().getN_ROWS() - 1, (int) ((clip.y + clip.height) / squareHeight));
+		int firstColumn = Math.max(0, (int) (clip.x / squareWidth));
+		int lastColumn = Math.min(grid.getConfig().getN_COLUMNS() - 1, (int) ((clip.x + clip.width) / squareWidth));
+		Image coveredImage = images.get("covered");
+		for (int r = firstRow; r <= lastRow; r++) {
+			for (int c = firstColumn; c <= lastColumn; c++) {
+				Image image = coveredImage;
+				// covered Squares are drawn without reading their content
+				if (grid.isPopulated() && grid.getState(r * grid.getConfig().getN_COLUMNS() + c) != SquareState.COVERED) {
+					image = images.get(ImageUtils.getInstance().getSquareImage(grid.getSquareAt(grid.getLocation(r, c))));
 				}
+				g.drawImage(image, (int)(squareWidth*c), (int)(squareHeight*r), null);
 			}
 		}
 		// draw pressed location
-		if (pressedLocation != null && (!grid.isPopulated() || grid.getSquareAt(pressedLocation).getState() == SquareState.COVERED)) {
+		if (pressedLocation != null && (!grid.isPopulated() || grid.getState(grid.getIndex(pressedLocation)) == SquareState.COVERED)) {
 			g.drawImage(images.get("pressed"), (int)(squareWidth*pressedLocation.getColumn()), (int)(squareHeight*pressedLocation.getRow()), null);
 		}
 		// draw horizontal and vertical lines to separate the squares